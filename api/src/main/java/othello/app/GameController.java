@@ -1,91 +1,305 @@
 package othello.app;
 
+import othello.Bitboard;
 import othello.Color;
 import othello.Field;
 import othello.Position;
+import othello.PositionCodec;
 import othello.Status;
 
 import othello.game.*;
 
-import java.util.HashMap;
-import java.util.List;
+import othello.app.batch.BatchAnalyzer;
+import othello.app.cache.PositionCache;
+import othello.app.search.Engine;
+import othello.app.search.SearchExecutor;
+import othello.app.search.SearchMetrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletRequest;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
 @Slf4j
 @CrossOrigin(origins = "http://localhost:3000")
 public class GameController {
+    private final PositionCache cache;
+    private final OpeningBook book;
+    private final BatchAnalyzer batch;
+    private final SearchExecutor search_executor;
+    private final Engine engine;
+    private final SearchMetrics metrics;
+
+    private static final int MAX_ANALYSIS_LINES = 8;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final int bot_depth;
+    private final long bot_time_ms;
+    private final long bot_max_time_ms;
+
+    public GameController(
+        PositionCache cache,
+        OpeningBookHolder book,
+        BatchAnalyzer batch,
+        SearchExecutor search_executor,
+        Engine engine,
+        SearchMetrics metrics,
+        @Value("${bot.depth:20}") int bot_depth,
+        @Value("${bot.time-ms:1000}") long bot_time_ms,
+        @Value("${bot.max-time-ms:10000}") long bot_max_time_ms
+    ) {
+        this.cache = cache;
+        this.book = book.getBook();
+        this.batch = batch;
+        this.search_executor = search_executor;
+        this.engine = engine;
+        this.metrics = metrics;
+        this.bot_depth = bot_depth;
+        this.bot_time_ms = bot_time_ms;
+        this.bot_max_time_ms = bot_max_time_ms;
+    }
+
     @GetMapping("/hello")
     public String index() {
         return "hello";
     }
 
+    // Positions are given either as `pos` (64 characters) and `to_move`, or as `code`,
+    // the 23 character base64url form of PositionCodec.
     // Test: http ':9000/status?pos=...........................OX......XO...........................&to_move=X'
+    // Test: http ':9000/status?code=AAAACBAAAAAAAAAQCAAAAAA'
     @GetMapping("/status")
     public Status getStatusOfPosition(
-        @RequestParam(value = "pos", required = true) String ascii,
-        @RequestParam(value = "to_move", required = true) String to_move
+        @RequestParam(value = "pos", required = false) String ascii,
+        @RequestParam(value = "to_move", required = false) String to_move,
+        @RequestParam(value = "code", required = false) String code
     ) {
-        assert(ascii.length() == Position.FIELDS);
-        assert(to_move.equals("X") || to_move.equals("O"));
-
-        Status status = Position
-          .fromString(ascii, Color.valueOf(to_move))
-          .generateStatus();
-
-        return status;
+        return cache.status(ParsePosition(ascii, to_move, code));
     }
 
+    // answers in the form of the request: ASCII board or code; 400 for an illegal move
     @GetMapping("/make_move")
     public String getPositionAfterMove(
-        @RequestParam(value = "pos", required = true) String ascii,
-        @RequestParam(value = "to_move", required = true) String to_move,
+        @RequestParam(value = "pos", required = false) String ascii,
+        @RequestParam(value = "to_move", required = false) String to_move,
+        @RequestParam(value = "code", required = false) String code,
         @RequestParam(value = "move", required = true) String move
     ) {
         log.warn(String.format("Got: pos=%s", ascii));
         log.warn(String.format("Got: to_move=[%s]", to_move));
+        log.warn(String.format("Got: code=[%s]", code));
         log.warn(String.format("Got: move=[%s]", move));
 
-        assert(ascii.length() == Position.FIELDS);
-        assert(to_move.equals("X") || to_move.equals("O"));
-        assert(move.equals("pass") || move.length() == 2);
-
+        Position pos = ParsePosition(ascii, to_move, code);
         if (move.equals("pass")) {
-            return ascii;
+            if (pos.hasLegalMove()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "pass is only allowed without legal moves");
+            }
+            // only changes the side to move, which the code form carries
+            pos.makePass();
+        } else {
+            Field field = ParseField(move);
+            // makeMove takes legal moves only, and the result would be cached
+            if (!Bitboard.contains(pos.legalMovesBitboard(), field.toIndex())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "illegal move: " + move);
+            }
+            pos = cache.makeMove(pos, field);
         }
 
-        Position pos = Position
-            .fromString(ascii, Color.valueOf(to_move))
-            .applyMove(Field.valueOf(move));
-
-        return pos.toAscii();
+        return code != null ? PositionCodec.toBase64(pos) : pos.toAscii();
     }
 
+    // The search runs on the SearchExecutor threads, this thread is free as soon as it's submitted.
+    // Answers 429 when too many searches are running, time_ms is capped by bot.max-time-ms.
+    // Positions close to the end are solved exactly, see Engine.
     @GetMapping("/bot")
-    public String getBotMove(
-        @RequestParam(value = "pos", required = true) String ascii,
-        @RequestParam(value = "to_move", required = true) String to_move
+    public DeferredResult<String> getBotMove(
+        @RequestParam(value = "pos", required = false) String ascii,
+        @RequestParam(value = "to_move", required = false) String to_move,
+        @RequestParam(value = "code", required = false) String code,
+        @RequestParam(value = "time_ms", required = false) Long time_ms
     ) {
         log.warn(String.format("Got: pos=%s", ascii));
         log.warn(String.format("Got: to_move=[%s]", to_move));
+        log.warn(String.format("Got: code=[%s]", code));
+
+        Position pos = ParsePosition(ascii, to_move, code);
+
+        if (!pos.hasLegalMove()) {
+            return Answered("pass");
+        }
+
+        SearchResult from_book = book == null ? null : book.probe(pos);
+        if (from_book != null) {
+            return Answered(from_book.move.toString());
+        }
+
+        long budget_ms = budget(time_ms);
+        // the time starts now, time spent waiting for a search thread counts
+        Engine.Job job = engine.job(pos, budget_ms);
+
+        return search_executor.submit(budget_ms, () -> {
+            // the book was probed above
+            SearchResult result = job.bestMove(bot_depth, false);
+            metrics.record("bot", result);
+            return result.move.toString();
+        }, job::stop);
+    }
+
+    // Like /bot, with everything the search found: score, depth, principal variation and statistics.
+    // The book is not used, the point is to look at the search; positions close to the end
+    // are solved exactly, like for /bot.
+    // Test: http ':9000/search?code=AAAACBAAAAAAAAAQCAAAAAA&time_ms=500'
+    @GetMapping("/search")
+    public DeferredResult<SearchResult> getSearchResult(
+        @RequestParam(value = "pos", required = false) String ascii,
+        @RequestParam(value = "to_move", required = false) String to_move,
+        @RequestParam(value = "code", required = false) String code,
+        @RequestParam(value = "time_ms", required = false) Long time_ms
+    ) {
+        Position pos = ParsePosition(ascii, to_move, code);
+
+        long budget_ms = budget(time_ms);
+        Engine.Job job = engine.job(pos, budget_ms);
+
+        return search_executor.submit(budget_ms, () -> {
+            SearchResult result = job.bestMove(bot_depth, false);
+            metrics.record("search", result);
+            return result;
+        }, job::stop);
+    }
+
+    // The best `lines` moves with their scores and principal variations, as server-sent events:
+    // an "analysis" event after every completed depth, then "result" with the final SearchResult.
+    // The book is not used. Answers 429 like /bot when too many searches are running.
+    // Test: http --stream ':9000/analyze?code=AAAACBAAAAAAAAAQCAAAAAA&lines=3&time_ms=2000'
+    @GetMapping(value = "/analyze", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter analyze(
+        @RequestParam(value = "pos", required = false) String ascii,
+        @RequestParam(value = "to_move", required = false) String to_move,
+        @RequestParam(value = "code", required = false) String code,
+        @RequestParam(value = "lines", defaultValue = "3") int lines,
+        @RequestParam(value = "time_ms", required = false) Long time_ms
+    ) {
+        Position pos = ParsePosition(ascii, to_move, code);
+        if (lines < 1 || lines > MAX_ANALYSIS_LINES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "lines must be between 1 and " + MAX_ANALYSIS_LINES);
+        }
+
+        long budget_ms = budget(time_ms);
+        Engine.Job job = engine.job(pos, budget_ms);
+
+        return search_executor.stream(budget_ms, emitter -> {
+            SearchResult result = job.analyze(bot_depth, lines, analysis -> {
+                if (!Send(emitter, "analysis", analysis)) {
+                    job.stop();
+                }
+            });
+            metrics.record("analyze", result);
+            Send(emitter, "result", result);
+        }, job::stop);
+    }
+
+    // @return false if the client is gone
+    private static boolean Send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private long budget(Long time_ms) {
+        return Math.min(time_ms != null && time_ms > 0 ? time_ms : bot_time_ms, bot_max_time_ms);
+    }
+
+    private static Position ParsePosition(String ascii, String to_move, String code) {
+        if (code != null) {
+            try {
+                return PositionCodec.fromBase64(code);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bad position code: " + e.getMessage());
+            }
+        }
+
+        if (ascii == null || to_move == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "give either pos and to_move, or code");
+        }
 
         assert(ascii.length() == Position.FIELDS);
         assert(to_move.equals("X") || to_move.equals("O"));
 
-        Position pos = Position.fromString(ascii, Color.valueOf(to_move));
-        Player player = new RandomPlayer("1");
+        return Position.fromString(ascii, Color.valueOf(to_move));
+    }
 
-        List<Field> moves = pos.legalMoves();
-        if (moves.size() == 0) {
-            return "pass";
+    private static Field ParseField(String move) {
+        try {
+            return Field.valueOf(move);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "not a field: " + move);
         }
-        Field move = player.bestMove(pos, moves);
-        return move.toString();
+    }
+
+    private static DeferredResult<String> Answered(String move) {
+        DeferredResult<String> result = new DeferredResult<>();
+        result.setResult(move);
+        return result;
+    }
+
+    // Many positions at once, as NDJSON lines or a JSON array of {"pos": ..., "to_move": ...}.
+    // The results come back as NDJSON in the order they finish. The request is read and the
+    // results written on an async thread, the searches run on the SearchExecutor threads;
+    // time_ms is the budget per position, capped by bot.max-time-ms.
+    // Test: http POST ':9000/bot/batch?depth=10' < positions.ndjson
+    @PostMapping("/bot/batch")
+    public ResponseEntity<StreamingResponseBody> getBotMoves(
+        @RequestParam(value = "depth", defaultValue = "8") int depth,
+        @RequestParam(value = "time_ms", required = false) Long time_ms,
+        HttpServletRequest request
+    ) throws IOException {
+        InputStream in = request.getInputStream();
+        long budget_ms = budget(time_ms);
+        return ResponseEntity.ok()
+            .contentType(NDJSON)
+            .body(out -> batch.analyze(in, out, depth, budget_ms));
+    }
+
+    @GetMapping("/cache_stats")
+    public Map<String, Map<String, Object>> getCacheStats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        result.put("status", describe(cache.getStatusStats()));
+        result.put("make_move", describe(cache.getMoveStats()));
+        return result;
+    }
+
+    private static Map<String, Object> describe(CacheStats stats) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hit_rate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
     }
 }
@@ -0,0 +1,40 @@
+package othello.app;
+
+import othello.game.OpeningBook;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+    The opening book given by book.path (build one with `game book <file>`),
+    memory-mapped once at startup and shared by all the requests.
+    Without the property, or if the file can't be read, there is no book.
+*/
+
+@Component
+@Slf4j
+public class OpeningBookHolder {
+    private final OpeningBook book;
+
+    public OpeningBookHolder(@Value("${book.path:}") String path) {
+        OpeningBook loaded = null;
+        if (!path.isEmpty()) {
+            try {
+                loaded = OpeningBook.load(Paths.get(path));
+                log.info(String.format("Loaded opening book %s with %d positions", path, loaded.size()));
+            } catch (IOException e) {
+                log.warn(String.format("Can't load opening book %s: %s", path, e.getMessage()));
+            }
+        }
+        this.book = loaded;
+    }
+
+    /** @return the book, or null if there is none */
+    public OpeningBook getBook() {
+        return book;
+    }
+}
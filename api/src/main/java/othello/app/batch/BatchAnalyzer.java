@@ -0,0 +1,191 @@
+package othello.app.batch;
+
+import othello.Color;
+import othello.Position;
+import othello.PositionCodec;
+import othello.Status;
+
+import othello.app.OpeningBookHolder;
+import othello.app.search.Engine;
+import othello.app.search.SearchExecutor;
+import othello.app.search.SearchMetrics;
+import othello.game.OpeningBook;
+import othello.game.SearchResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+    Analysis of many positions in one request.
+
+    The positions are read one by one from the request body (NDJSON, or a
+    JSON array) and searched in parallel on the SearchExecutor threads,
+    sharing their admission control with /bot and the other searches.
+    Results are written as NDJSON in the order they finish, each tagged
+    with the index of its position, so a client sees the first results
+    long before the whole batch is done.
+
+    Reading and writing run on a Spring MVC async thread rather than a
+    Tomcat thread (see GameController), and the searches always run on the
+    search threads, with their transposition tables.
+
+    A request never has more positions in flight than there are search
+    threads, which bounds the memory for any size of batch. When the
+    executor is full with other searches, the batch waits for one of its
+    own positions to finish and tries again. With nothing of its own to
+    wait for, the batch is answered with 429 if it hasn't written anything
+    yet, otherwise the position gets an error line.
+*/
+
+@Component
+@Slf4j
+public class BatchAnalyzer {
+    private static final int MAX_DEPTH = 30;
+    private static final String REJECTED = "too many searches, try again later";
+    private static final String FAILED = "the analysis failed";
+
+    private final ObjectMapper mapper;
+    private final OpeningBook book;
+    private final SearchExecutor search_executor;
+    private final Engine engine;
+    private final SearchMetrics metrics;
+
+    public BatchAnalyzer(
+        ObjectMapper mapper,
+        OpeningBookHolder book,
+        SearchExecutor search_executor,
+        Engine engine,
+        SearchMetrics metrics
+    ) {
+        this.mapper = mapper;
+        this.book = book.getBook();
+        this.search_executor = search_executor;
+        this.engine = engine;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Reads positions from `in` until the end and writes a result line for each to `out`.
+     *
+     * @param time_ms the budget of every position
+     * @throws SearchExecutor.Rejected if the first position can't get a search thread
+     */
+    public void analyze(InputStream in, OutputStream out, int depth, long time_ms) throws IOException {
+        final int max_depth = Math.max(1, Math.min(depth, MAX_DEPTH));
+        final int max_in_flight = search_executor.getThreads();
+        final BlockingQueue<BatchResult> finished = new LinkedBlockingQueue<>();
+
+        int submitted = 0;
+        int written = 0;
+
+        try (MappingIterator<BatchRequest> requests = mapper.readerFor(BatchRequest.class).readValues(in)) {
+            while (requests.hasNextValue()) {
+                final int index = submitted++;
+                final BatchRequest request = requests.nextValue();
+
+                while (index - written >= max_in_flight) {
+                    write(out, finished.take());
+                    written++;
+                }
+
+                final Runnable work = () -> {
+                    BatchResult result = null;
+                    try {
+                        result = analyzeOne(index, request, max_depth, time_ms);
+                    } finally {
+                        // every position gets its line, even after an Error, or the batch waits forever
+                        finished.add(result != null ? result : new BatchResult(index, request.pos, request.to_move, FAILED));
+                    }
+                };
+
+                while (!search_executor.tryExecute(work)) {
+                    if (index == written) {
+                        // none of ours running, nothing to wait for
+                        if (written == 0) {
+                            throw new SearchExecutor.Rejected();
+                        }
+                        finished.add(new BatchResult(index, request.pos, request.to_move, REJECTED));
+                        break;
+                    }
+                    write(out, finished.take());
+                    written++;
+                }
+
+                // write whatever is done while we keep reading
+                for (BatchResult result = finished.poll(); result != null; result = finished.poll()) {
+                    write(out, result);
+                    written++;
+                }
+                out.flush();
+            }
+
+            while (written < submitted) {
+                write(out, finished.take());
+                written++;
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for the results", e);
+        }
+
+        log.info(String.format("Analyzed a batch of %d positions", submitted));
+    }
+
+    // on a search thread
+    private BatchResult analyzeOne(int index, BatchRequest request, int max_depth, long time_ms) {
+        final long start = System.nanoTime();
+        try {
+            final Position pos;
+            if (request.code != null) {
+                pos = PositionCodec.fromBase64(request.code);
+                request.pos = pos.toAscii();
+                request.to_move = pos.getPlayerToMove().toString();
+            } else {
+                if (request.pos == null || request.pos.length() != Position.FIELDS)
+                    return new BatchResult(index, request.pos, request.to_move, "pos must have " + Position.FIELDS + " characters");
+                // fromString skips other characters and asserts there were 64 squares
+                if (!request.pos.chars().allMatch(c -> c == 'X' || c == 'O' || c == '.'))
+                    return new BatchResult(index, request.pos, request.to_move, "pos must only have X, O and .");
+                if (!"X".equals(request.to_move) && !"O".equals(request.to_move))
+                    return new BatchResult(index, request.pos, request.to_move, "to_move must be X or O");
+
+                pos = Position.fromString(request.pos, Color.valueOf(request.to_move));
+            }
+            final Status status = pos.generateStatus();
+
+            if (status.isGameFinished())
+                return new BatchResult(index, request.pos, request.to_move, null, 0, 0, 0, 0, false);
+            if (status.isPassForced())
+                return new BatchResult(index, request.pos, request.to_move, "pass", 0, 0, 0, 0, false);
+
+            final SearchResult from_book = book == null ? null : book.probe(pos);
+            if (from_book != null)
+                return describe(index, request, from_book, (System.nanoTime() - start) / 1_000_000, true);
+
+            final SearchResult result = engine.job(pos, time_ms).bestMove(max_depth, false);
+            metrics.record("batch", result);
+            return describe(index, request, result, result.time_ms, false);
+        } catch (RuntimeException e) {
+            return new BatchResult(index, request.pos, request.to_move, e.toString());
+        }
+    }
+
+    private static BatchResult describe(int index, BatchRequest request, SearchResult result, long time_ms, boolean from_book) {
+        return new BatchResult(index, request.pos, request.to_move, result.move.toString(),
+            result.score, result.depth, result.nodes, time_ms, from_book);
+    }
+
+    private void write(OutputStream out, BatchResult result) throws IOException {
+        out.write(mapper.writeValueAsBytes(result));
+        out.write('\n');
+    }
+}
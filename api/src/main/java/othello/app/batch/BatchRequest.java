@@ -0,0 +1,8 @@
+package othello.app.batch;
+
+/** one position of a batch, in the format of the /bot parameters: pos and to_move, or code */
+public class BatchRequest {
+    public String pos;
+    public String to_move;
+    public String code;
+}
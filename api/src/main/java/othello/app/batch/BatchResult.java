@@ -0,0 +1,42 @@
+package othello.app.batch;
+
+/** analysis of one position of a batch, `index` is its place in the request */
+public class BatchResult {
+    final public int index;
+    final public String pos;
+    final public String to_move;
+    final public String move; /* "pass" if the player has to pass, null if the game is finished */
+    final public int score;
+    final public int depth;
+    final public long nodes;
+    final public long time_ms;
+    final public boolean from_book;
+    final public String error; /* null if the position was analysed */
+
+    BatchResult(int index, String pos, String to_move, String move,
+                int score, int depth, long nodes, long time_ms, boolean from_book) {
+        this.index = index;
+        this.pos = pos;
+        this.to_move = to_move;
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.time_ms = time_ms;
+        this.from_book = from_book;
+        this.error = null;
+    }
+
+    BatchResult(int index, String pos, String to_move, String error) {
+        this.index = index;
+        this.pos = pos;
+        this.to_move = to_move;
+        this.move = null;
+        this.score = 0;
+        this.depth = 0;
+        this.nodes = 0;
+        this.time_ms = 0;
+        this.from_book = false;
+        this.error = error;
+    }
+}
@@ -0,0 +1,114 @@
+package othello.app.cache;
+
+import othello.Bitboard;
+import othello.Color;
+import othello.Field;
+import othello.Position;
+import othello.Status;
+import othello.Symmetry;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+    Results of /status and /make_move for recently requested positions.
+
+    Positions are stored in their canonical form, so the 8 reflections and
+    rotations of a position share one entry. A result is computed in the
+    canonical frame and mapped back to the frame of the request with the
+    inverse symmetry: the list of moves for a status, the board after the
+    move for make_move.
+
+    The caches are bounded by size and entries expire after cache.ttl-minutes.
+    Their hits, misses and evictions are exported as the cache.* metrics,
+    tagged cache=position.status and cache=position.move.
+*/
+
+@Component
+public class PositionCache {
+    private final Cache<PositionKey, Status> statuses;
+    // bitboards of X and O after the move, in the canonical frame
+    private final Cache<PositionKey, long[]> moves;
+
+    public PositionCache(
+        @Value("${cache.max-size:100000}") long max_size,
+        @Value("${cache.ttl-minutes:10}") long ttl_minutes,
+        MeterRegistry registry
+    ) {
+        this.statuses = Caffeine.newBuilder()
+            .maximumSize(max_size)
+            .expireAfterAccess(Duration.ofMinutes(ttl_minutes))
+            .recordStats()
+            .build();
+        this.moves = Caffeine.newBuilder()
+            .maximumSize(max_size)
+            .expireAfterAccess(Duration.ofMinutes(ttl_minutes))
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(registry, statuses, "position.status");
+        CaffeineCacheMetrics.monitor(registry, moves, "position.move");
+    }
+
+    public Status status(Position pos) {
+        final long x = pos.getBitboard(Color.X);
+        final long o = pos.getBitboard(Color.O);
+        final int symmetry = pos.canonicalSymmetry();
+
+        final PositionKey key = new PositionKey(
+            Symmetry.transform(symmetry, x), Symmetry.transform(symmetry, o), pos.getPlayerToMove(), PositionKey.NO_MOVE);
+        final Status canonical = statuses.get(key, k ->
+            Position.fromBitboards(k.x, k.o, k.to_move).generateStatus());
+
+        return transform(Symmetry.inverse(symmetry), canonical);
+    }
+
+    /** @return the position after the move, the move has to be legal */
+    public Position makeMove(Position pos, Field move) {
+        final long x = pos.getBitboard(Color.X);
+        final long o = pos.getBitboard(Color.O);
+        final int symmetry = pos.canonicalSymmetry();
+
+        final PositionKey key = new PositionKey(
+            Symmetry.transform(symmetry, x), Symmetry.transform(symmetry, o), pos.getPlayerToMove(),
+            Symmetry.transform(symmetry, move.toIndex()));
+        final long[] after = moves.get(key, k -> {
+            Position next = Position.fromBitboards(k.x, k.o, k.to_move);
+            next.makeMove(k.move);
+            return new long[] { next.getBitboard(Color.X), next.getBitboard(Color.O) };
+        });
+
+        return Position.fromBitboards(Symmetry.inverseTransform(symmetry, after[0]),
+            Symmetry.inverseTransform(symmetry, after[1]), pos.getPlayerToMove().opposite());
+    }
+
+    public CacheStats getStatusStats() {
+        return statuses.stats();
+    }
+
+    public CacheStats getMoveStats() {
+        return moves.stats();
+    }
+
+    private static Status transform(int symmetry, Status status) {
+        if (status.isGameFinished()) {
+            return status;
+        }
+
+        // keep the moves in board order, like generateStatus does
+        long mask = Symmetry.transform(symmetry, Bitboard.fromFields(status.moves));
+        List<Field> moves = Bitboard.toFields(mask);
+
+        return status.isPassForced()
+            ? Status.OneSidedPass(moves)
+            : Status.MovesAvailable(moves);
+    }
+}
@@ -0,0 +1,39 @@
+package othello.app.cache;
+
+import othello.Color;
+
+/*
+    Cache key of a position in its canonical form (see othello.Symmetry),
+    plus a move in the same frame for the /make_move results (NO_MOVE for
+    /status).
+*/
+
+final class PositionKey {
+    static final int NO_MOVE = -1;
+
+    final long x;
+    final long o;
+    final Color to_move;
+    final int move;
+
+    PositionKey(long x, long o, Color to_move, int move) {
+        this.x = x;
+        this.o = o;
+        this.to_move = to_move;
+        this.move = move;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PositionKey))
+            return false;
+        PositionKey key = (PositionKey) other;
+        return x == key.x && o == key.o && to_move == key.to_move && move == key.move;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = x * 0x9e3779b97f4a7c15L ^ o * 0xc2b2ae3d27d4eb4fL;
+        return (int) (h ^ (h >>> 32)) * 31 + to_move.ordinal() * 65 + move;
+    }
+}
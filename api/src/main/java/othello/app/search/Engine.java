@@ -0,0 +1,119 @@
+package othello.app.search;
+
+import othello.Position;
+
+import othello.app.OpeningBookHolder;
+import othello.game.AlphaBetaPlayer;
+import othello.game.Analysis;
+import othello.game.Evaluator;
+import othello.game.OpeningBook;
+import othello.game.PatternEvaluator;
+import othello.game.PatternWeights;
+import othello.game.Search;
+import othello.game.SearchResult;
+import othello.game.TranspositionTable;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+    The bot behind /bot, /search, /analyze and /bot/batch.
+
+    A request gets a Job, which runs on a SearchExecutor thread with the
+    transposition table of that thread: bestMove goes through the pipeline
+    of AlphaBetaPlayer (opening book, exact endgame solver, then the
+    search), analyze through Search.analyze.
+
+    Every job searches on one thread. The executor already runs a search
+    per core, Lazy SMP within a request would only take cores from the
+    others.
+
+    bot.weights names pattern weights for the evaluation (`game weights
+    <file>` writes a starting point); without them, or if the file can't
+    be read, the bot evaluates with the square weights.
+*/
+
+@Component
+@Slf4j
+public class Engine {
+    private final OpeningBook book;
+    private final Evaluator evaluator;
+
+    public Engine(OpeningBookHolder book, @Value("${bot.weights:}") String weights) {
+        Evaluator loaded = Evaluator.SQUARE_WEIGHTS;
+        if (!weights.isEmpty()) {
+            try {
+                loaded = new PatternEvaluator(PatternWeights.load(Paths.get(weights)));
+                log.info(String.format("Loaded pattern weights %s", weights));
+            } catch (IOException e) {
+                log.warn(String.format("Can't load pattern weights %s: %s", weights, e.getMessage()));
+            }
+        }
+        this.book = book.getBook();
+        this.evaluator = loaded;
+    }
+
+    /** a search of the position for one request, its time starts now */
+    public Job job(Position pos, long time_ms) {
+        return new Job(pos, time_ms);
+    }
+
+    public class Job {
+        private final Position pos;
+        private final long time_ms;
+        private final long start_ns = System.nanoTime();
+
+        private volatile boolean stopped = false;
+        // stops the player or the search running the job, null before it starts
+        private volatile Runnable stop_running = null;
+
+        private Job(Position pos, long time_ms) {
+            this.pos = pos.copy();
+            this.time_ms = time_ms;
+        }
+
+        /** the bot's move, to be called on a search thread */
+        public SearchResult bestMove(int depth, boolean use_book) {
+            final AlphaBetaPlayer player = new AlphaBetaPlayer("bot", depth, timeLeft(), SearchExecutor.table());
+            player.evaluator = evaluator;
+            player.book = use_book ? book : null;
+            running(player::stop);
+            return player.search(pos);
+        }
+
+        /** the best `lines` moves, see Search.analyze; to be called on a search thread */
+        public SearchResult analyze(int depth, int lines, Consumer<Analysis> listener) {
+            final TranspositionTable tt = SearchExecutor.table();
+            tt.newSearch();
+            final Search search = new Search(pos, timeLeft(), tt, evaluator, 0);
+            running(search::stop);
+            return search.analyze(depth, lines, listener);
+        }
+
+        /** asks the job to return as soon as possible, safe to call from other threads */
+        public void stop() {
+            stopped = true;
+            final Runnable stop = stop_running;
+            if (stop != null) {
+                stop.run();
+            }
+        }
+
+        private void running(Runnable stop) {
+            stop_running = stop;
+            if (stopped) {
+                stop.run();
+            }
+        }
+
+        // the time waiting for a search thread counts
+        private long timeLeft() {
+            return Math.max(1, time_ms - (System.nanoTime() - start_ns) / 1_000_000);
+        }
+    }
+}
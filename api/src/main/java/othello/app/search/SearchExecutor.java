@@ -0,0 +1,345 @@
+package othello.app.search;
+
+import othello.game.TranspositionTable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.server.ResponseStatusException;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+    Runs bot searches away from the servlet threads.
+
+    A search can take seconds, so the request handler only submits it here
+    and returns a DeferredResult; the Tomcat thread goes back to the pool
+    and cheap requests like /status don't wait behind searches.
+
+    The executor has search.threads threads and a queue of search.queue
+    waiting searches. When both are full a new search is rejected right away
+    (SearchExecutor.Rejected, answered with 429) instead of piling up work
+    that would miss its deadline anyway.
+
+    Every search gets a deadline when it's submitted, so the time it spends
+    in the queue counts. A search whose request ended before it started
+    (timeout, client gone) is skipped, and a running one is asked to stop.
+
+    stream is the same for work that sends its results as server-sent
+    events while it runs, instead of one result at the end.
+
+    Background work (pondering, see Ponderer) only starts on an idle
+    thread and gives it back as soon as a request needs it: when a request
+    has to wait for a thread, the oldest background work is stopped. So
+    background work never delays a search somebody is waiting for.
+
+    Every search thread has its own transposition table of
+    search.tt-size-bits, allocated on its first search and kept for the
+    next ones (see table()), so a request doesn't allocate one. The
+    tables take threads * 2^bits * 16 bytes.
+
+    The metrics othello.search.active, othello.search.queued and
+    othello.search.rejected show how close the pool is to its limits.
+
+    Java 11 has no virtual threads, which is why this is a bounded pool of
+    platform threads rather than a thread per request.
+*/
+
+@Component
+@Slf4j
+public class SearchExecutor {
+    // extra time for the request over the search deadline, before we give up on it
+    private static final long GRACE_MS = 2000;
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    // work submitted and not finished, requests and background
+    private final AtomicInteger busy = new AtomicInteger();
+    // how to stop the background work running now, oldest first
+    private final ConcurrentLinkedQueue<Runnable> background = new ConcurrentLinkedQueue<>();
+    private final Counter rejected;
+
+    public SearchExecutor(
+        @Value("${search.threads:0}") int threads,
+        @Value("${search.queue:16}") int queue,
+        @Value("${search.tt-size-bits:18}") int tt_size_bits,
+        MeterRegistry registry
+    ) {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory factory = runnable ->
+            new SearchThread(runnable, "search-" + count.incrementAndGet(), tt_size_bits);
+
+        this.threads = threads;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queue), factory, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("othello.search.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("searches running")
+            .register(registry);
+        Gauge.builder("othello.search.queued", executor, e -> e.getQueue().size())
+            .description("searches waiting for a thread")
+            .register(registry);
+        this.rejected = Counter.builder("othello.search.rejected")
+            .description("searches rejected because the executor was full")
+            .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the work on a search thread.
+     *
+     * @param time_ms how long the work is expected to take, it's given
+     *     a little more before the request fails with 503
+     * @param stop asks the running work to finish early, may be null
+     * @throws Rejected if too many searches are running and waiting
+     */
+    public <T> DeferredResult<T> submit(long time_ms, Supplier<T> work, Runnable stop) {
+        final DeferredResult<T> result = new DeferredResult<>(time_ms + GRACE_MS);
+        final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        final Runnable cancel = () -> {
+            if (!cancelled.getAndSet(true) && stop != null) {
+                stop.run();
+            }
+        };
+        result.onTimeout(() -> {
+            cancel.run();
+            result.setErrorResult(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "search timed out"));
+        });
+        result.onError(error -> cancel.run());
+
+        try {
+            execute(() -> {
+                if (cancelled.get()) {
+                    return;
+                }
+                try {
+                    result.setResult(work.get());
+                } catch (RuntimeException e) {
+                    result.setErrorResult(e);
+                } finally {
+                    // the request is done, nothing to stop anymore
+                    cancelled.set(true);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected();
+            throw new Rejected();
+        }
+
+        return result;
+    }
+
+    /**
+     * Runs the work on a search thread, it sends its events to the emitter.
+     * The stream is completed when the work returns.
+     *
+     * @param time_ms how long the work is expected to take, the stream is
+     *     closed a little after that
+     * @param stop asks the running work to finish early, may be null
+     * @throws Rejected if too many searches are running and waiting
+     */
+    public SseEmitter stream(long time_ms, Consumer<SseEmitter> work, Runnable stop) {
+        final SseEmitter emitter = new SseEmitter(time_ms + GRACE_MS);
+        final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        final Runnable cancel = () -> {
+            if (!cancelled.getAndSet(true) && stop != null) {
+                stop.run();
+            }
+        };
+        emitter.onTimeout(() -> {
+            cancel.run();
+            emitter.complete();
+        });
+        emitter.onError(error -> cancel.run());
+        emitter.onCompletion(cancel);
+
+        try {
+            execute(() -> {
+                if (cancelled.get()) {
+                    return;
+                }
+                try {
+                    work.accept(emitter);
+                    emitter.complete();
+                } catch (RuntimeException e) {
+                    emitter.completeWithError(e);
+                } finally {
+                    cancelled.set(true);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected();
+            throw new Rejected();
+        }
+
+        return emitter;
+    }
+
+    /**
+     * Runs the work on a search thread, for requests that run several
+     * searches and deal with a full executor themselves.
+     *
+     * @return false if too many searches are running and waiting
+     */
+    public boolean tryExecute(Runnable work) {
+        try {
+            execute(work);
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected();
+            return false;
+        }
+    }
+
+    /**
+     * Runs the work on an idle search thread, until a request needs the
+     * thread: then `stop` is called and the work should return right away.
+     *
+     * @return false if no thread is idle
+     */
+    public boolean tryBackground(Runnable work, Runnable stop) {
+        int running;
+        do {
+            running = busy.get();
+            if (running >= threads) {
+                return false;
+            }
+        } while (!busy.compareAndSet(running, running + 1));
+
+        // its own object, so remove doesn't take another work's hook
+        final Runnable preempt = () -> stop.run();
+        background.add(preempt);
+        try {
+            executor.execute(() -> {
+                try {
+                    work.run();
+                } finally {
+                    background.remove(preempt);
+                    busy.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            background.remove(preempt);
+            busy.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    // work of a request, it takes the thread of background work rather than wait
+    private void execute(Runnable work) {
+        busy.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    work.run();
+                } finally {
+                    busy.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            busy.decrementAndGet();
+            throw e;
+        }
+
+        if (busy.get() > threads) {
+            final Runnable preempt = background.poll();
+            if (preempt != null) {
+                preempt.run();
+            }
+        }
+    }
+
+    private void rejected() {
+        rejected.increment();
+        log.warn(String.format("Search rejected, %d running and %d waiting",
+            executor.getActiveCount(), executor.getQueue().size()));
+    }
+
+    /**
+     * @return the transposition table of the calling search thread
+     * @throws IllegalStateException if not called from work of this executor
+     */
+    public static TranspositionTable table() {
+        final Thread thread = Thread.currentThread();
+        if (!(thread instanceof SearchThread)) {
+            throw new IllegalStateException("not a search thread: " + thread.getName());
+        }
+        return ((SearchThread) thread).table();
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    private static class SearchThread extends Thread {
+        private final int tt_size_bits;
+        private TranspositionTable tt = null;
+
+        SearchThread(Runnable runnable, String name, int tt_size_bits) {
+            super(runnable, name);
+            setDaemon(true);
+            this.tt_size_bits = tt_size_bits;
+        }
+
+        // only ever used by this thread
+        TranspositionTable table() {
+            if (tt == null) {
+                tt = new TranspositionTable(tt_size_bits);
+            }
+            return tt;
+        }
+    }
+
+    /** the search executor is full, the client should retry later */
+    public static class Rejected extends ResponseStatusException {
+        private static final long serialVersionUID = 1L;
+
+        public Rejected() {
+            super(HttpStatus.TOO_MANY_REQUESTS, "too many searches, try again later");
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package othello.app.search;
+
+import othello.game.SearchResult;
+import othello.game.SearchStats;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.stereotype.Component;
+
+/*
+    Engine metrics, exported with the rest at /actuator/prometheus and
+    /actuator/metrics. All of them are tagged with the endpoint that ran
+    the search.
+
+    othello.search.time             wall-clock time of the searches
+    othello.search.nodes            nodes per search
+    othello.search.depth            depth reached
+    othello.search.nps              nodes per second
+    othello.search.tt.hit.ratio     share of table probes that hit
+    othello.search.cutoff.ratio     share of inner nodes with a beta cutoff
+    othello.search.first.move.cutoff.ratio
+                                    share of cutoffs by the first move
+*/
+
+@Component
+public class SearchMetrics {
+    private final MeterRegistry registry;
+
+    public SearchMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void record(String endpoint, SearchResult result) {
+        Timer.builder("othello.search.time")
+            .tag("endpoint", endpoint)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(result.time_ms, TimeUnit.MILLISECONDS);
+
+        histogram("othello.search.nodes", endpoint, "nodes").record(result.nodes);
+        histogram("othello.search.depth", endpoint, "plies").record(result.depth);
+
+        SearchStats stats = result.stats;
+        if (stats != null) {
+            histogram("othello.search.nps", endpoint, "nodes/s").record(stats.nps);
+            // ratios are between 0 and 1, too narrow for the default histogram buckets
+            ratio("othello.search.tt.hit.ratio", endpoint).record(stats.tt_hit_rate);
+            ratio("othello.search.cutoff.ratio", endpoint).record(stats.cutoff_rate);
+            ratio("othello.search.first.move.cutoff.ratio", endpoint).record(stats.first_move_cutoff_rate);
+        }
+    }
+
+    // registering a meter again returns the existing one
+
+    private DistributionSummary histogram(String name, String endpoint, String unit) {
+        return DistributionSummary.builder(name)
+            .tag("endpoint", endpoint)
+            .baseUnit(unit)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    private DistributionSummary ratio(String name, String endpoint) {
+        return DistributionSummary.builder(name)
+            .tag("endpoint", endpoint)
+            .register(registry);
+    }
+}
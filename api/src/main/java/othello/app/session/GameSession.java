@@ -0,0 +1,249 @@
+package othello.app.session;
+
+import othello.Bitboard;
+import othello.Field;
+import othello.Position;
+import othello.Status;
+
+import othello.game.AlphaBetaPlayer;
+import othello.game.OpeningBook;
+import othello.game.Search;
+import othello.game.SearchResult;
+import othello.game.TranspositionTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    One game played through the session API.
+
+    The position is kept as bitboards between requests, so a move is applied
+    with makeMove instead of reparsing the whole board. The bot keeps its
+    transposition table for the whole game, which means the search for its
+    next move starts with the results of the previous one.
+
+    With a Ponderer the bot keeps searching after its move, on the human's
+    time, see Ponderer.java.
+
+    A bot move is a BotMove, so the request that asked for it can stop
+    it, even before it started. Every move has its own AlphaBetaPlayer on
+    the game's table: a stopped player stays stopped.
+
+    All the methods lock the session, except those of BotMove that don't
+    touch the game; two requests for the same game are applied one after
+    the other.
+*/
+
+public class GameSession {
+    public static final String PASS = "pass";
+
+    private final String id;
+    private final Position pos = Position.initialPosition();
+    private final List<String> moves = new ArrayList<>();
+
+    private final int bot_depth;
+    private final long bot_time_ms;
+    private final int tt_size_bits;
+    private final OpeningBook book;
+    // created on the first bot move, human vs human games don't need it
+    private TranspositionTable tt = null;
+    // null for a game without pondering
+    private final Ponderer ponderer;
+    private Ponderer.Pondering pondering = null;
+
+    private volatile long last_access_ms;
+
+    GameSession(String id, int bot_depth, long bot_time_ms, int tt_size_bits, OpeningBook book, Ponderer ponderer) {
+        this.id = id;
+        this.bot_depth = bot_depth;
+        this.bot_time_ms = bot_time_ms;
+        this.tt_size_bits = tt_size_bits;
+        this.book = book;
+        this.ponderer = ponderer;
+        touch();
+    }
+
+    GameSession(String id, int bot_depth, long bot_time_ms, int tt_size_bits, OpeningBook book) {
+        this(id, bot_depth, bot_time_ms, tt_size_bits, book, null);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getBotTimeMs() {
+        return bot_time_ms;
+    }
+
+    long getLastAccess() {
+        return last_access_ms;
+    }
+
+    void touch() {
+        last_access_ms = System.currentTimeMillis();
+    }
+
+    public synchronized GameState getState() {
+        return new GameState(id, pos.toAscii(), pos.getPlayerToMove(), pos.generateStatus(), new ArrayList<>(moves));
+    }
+
+    /**
+     * @param move a field like "D3", or "pass" when there is no legal move
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    public synchronized GameState play(String move) {
+        Status status = pos.generateStatus();
+        if (status.isGameFinished()) {
+            throw new IllegalArgumentException("the game is finished");
+        }
+
+        if (move.equals(PASS)) {
+            if (!status.isPassForced()) {
+                throw new IllegalArgumentException("pass is only allowed without legal moves");
+            }
+            pos.makePass();
+        } else {
+            Field field = parseField(move);
+            if (status.isPassForced() || !status.moves.contains(field)) {
+                throw new IllegalArgumentException("illegal move: " + move);
+            }
+            pos.makeMove(field);
+        }
+
+        // not the guessed reply, the thread is better used elsewhere
+        if (pondering != null && !pondering.matches(pos)) {
+            pondering.cancel();
+            pondering = null;
+        }
+
+        moves.add(move);
+        return getState();
+    }
+
+    /** lets the bot choose and play the move for the side to move */
+    public GameState playBot() {
+        return botMove().play();
+    }
+
+    /** the bot's next move, for a request that may stop it; nothing happens before play() */
+    public BotMove botMove() {
+        return new BotMove();
+    }
+
+    private synchronized GameState playBot(BotMove move) {
+        Status status = pos.generateStatus();
+        if (status.isGameFinished()) {
+            throw new IllegalArgumentException("the game is finished");
+        }
+
+        if (status.isPassForced()) {
+            return play(PASS);
+        }
+
+        if (tt == null) {
+            tt = new TranspositionTable(tt_size_bits);
+        }
+        AlphaBetaPlayer bot = new AlphaBetaPlayer(id, bot_depth, bot_time_ms, tt);
+        bot.book = book;
+        move.running(bot);
+
+        SearchResult result = null;
+        if (pondering != null) {
+            // a hit takes over the search of this position, null if it found nothing
+            if (pondering.matches(pos)) {
+                result = pondering.finish(move.stopped ? 0 : bot_time_ms);
+            } else {
+                pondering.cancel();
+            }
+            pondering = null;
+        }
+        if (result == null) {
+            result = bot.search(pos);
+        }
+
+        GameState state = play(result.move.toString());
+        ponder(bot, result);
+        return state;
+    }
+
+    /** the search running on the human's time, null if none */
+    synchronized Ponderer.Pondering pondering() {
+        return pondering;
+    }
+
+    /** stops the pondering, when the session is dropped */
+    public synchronized void close() {
+        if (pondering != null) {
+            pondering.cancel();
+            pondering = null;
+        }
+    }
+
+    // after a bot move: searches the position after the reply it expects,
+    // or the human's position when there is no such reply
+    private void ponder(AlphaBetaPlayer bot, SearchResult result) {
+        // with no legal move the human passes and the bot plays on at once
+        if (ponderer == null || !pos.hasLegalMove()) {
+            return;
+        }
+
+        Field reply = result.pv != null && result.pv.size() > 1 ? result.pv.get(1) : null;
+        Search search = null;
+        Position target = pos;
+        if (reply != null && Bitboard.contains(pos.legalMovesBitboard(), reply.toIndex())) {
+            target = pos.applyMove(reply);
+            search = bot.ponder(target, ponderer.getMaxTimeMs());
+        }
+        final boolean guess = search != null;
+        if (!guess) {
+            target = pos;
+            search = bot.ponder(target, ponderer.getMaxTimeMs());
+        }
+
+        if (search != null) {
+            pondering = ponderer.start(target, guess, search, bot.getMaxDepth());
+        }
+    }
+
+    public class BotMove {
+        private volatile boolean stopped = false;
+        // the player searching the move, null before it starts
+        private volatile AlphaBetaPlayer player = null;
+
+        private BotMove() {
+        }
+
+        /** searches and plays the move, waiting for other requests of the game */
+        public GameState play() {
+            return playBot(this);
+        }
+
+        /**
+         * Makes the bot play the best move found so far, or right away if
+         * it hasn't started; not synchronized, it comes while play holds the lock.
+         */
+        public void stop() {
+            stopped = true;
+            AlphaBetaPlayer running = player;
+            if (running != null) {
+                running.stop();
+            }
+        }
+
+        private void running(AlphaBetaPlayer bot) {
+            player = bot;
+            // stopped before it started
+            if (stopped) {
+                bot.stop();
+            }
+        }
+    }
+
+    private static Field parseField(String move) {
+        try {
+            return Field.valueOf(move.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("not a field: " + move);
+        }
+    }
+}
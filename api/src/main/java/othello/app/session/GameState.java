@@ -0,0 +1,23 @@
+package othello.app.session;
+
+import othello.Color;
+import othello.Status;
+
+import java.util.List;
+
+/** snapshot of a session returned by the API */
+public class GameState {
+    final public String id;
+    final public String pos;
+    final public Color to_move;
+    final public Status status;
+    final public List<String> moves;
+
+    GameState(String id, String pos, Color to_move, Status status, List<String> moves) {
+        this.id = id;
+        this.pos = pos;
+        this.to_move = to_move;
+        this.status = status;
+        this.moves = moves;
+    }
+}
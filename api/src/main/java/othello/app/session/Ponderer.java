@@ -0,0 +1,211 @@
+package othello.app.session;
+
+import othello.Position;
+
+import othello.game.Search;
+import othello.game.SearchResult;
+
+import othello.app.search.SearchExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+    Pondering: the bot of a session game searches while the human thinks.
+
+    After its move the bot guesses the reply (the second move of its
+    principal variation) and searches the position after it. When the
+    human plays the guessed move, the next bot request takes over that
+    search instead of starting one: it only waits for the rest of its time
+    budget, or not at all if the pondering already ran that long, and plays
+    the move found (a ponder hit). Any other move stops the pondering right
+    away (a miss); the transposition table it filled is shared with the
+    bot, so the search of the reply still starts warm. Without a guess the
+    bot ponders the human's position itself, which fills the table for all
+    replies.
+
+    Pondering runs on idle SearchExecutor threads, as background work: a
+    request that would wait for a thread stops a pondering instead
+    (preempted), and a game isn't pondered when no thread is idle or when
+    sessions.ponder-threads games ponder already (busy). A preempted
+    pondering is never played, only its table is used. A pondering search
+    stops after sessions.ponder-max-ms, for games the human has left.
+
+    Off unless sessions.ponder is true; the metric othello.ponder counts
+    the hits, the misses, the ponderings without a guess (warmup), the
+    preempted ones and the games not pondered (busy).
+*/
+
+@Component
+public class Ponderer {
+    private final boolean enabled;
+    private final long max_time_ms;
+    private final int threads;
+    private final SearchExecutor search_executor;
+    // ponderings started and not finished, at most `threads`
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter busy;
+    private final Counter warmups;
+    private final Counter preempted;
+
+    public Ponderer(
+        @Value("${sessions.ponder:false}") boolean enabled,
+        @Value("${sessions.ponder-threads:1}") int threads,
+        @Value("${sessions.ponder-max-ms:30000}") long max_time_ms,
+        SearchExecutor search_executor,
+        MeterRegistry registry
+    ) {
+        assert threads > 0;
+
+        this.enabled = enabled;
+        this.max_time_ms = max_time_ms;
+        this.threads = threads;
+        this.search_executor = search_executor;
+
+        this.hits = counter(registry, "hit");
+        this.misses = counter(registry, "miss");
+        this.busy = counter(registry, "busy");
+        this.warmups = counter(registry, "warmup");
+        this.preempted = counter(registry, "preempted");
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("othello.ponder")
+            .description("pondered positions by outcome")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getMaxTimeMs() {
+        return max_time_ms;
+    }
+
+    /**
+     * Starts searching the position in the background.
+     *
+     * @param pos the position the search was created for
+     * @param guess true if the position is the guessed reply, a ponder hit is
+     *     when the game gets there; false when pondering the human's position
+     * @return null if too many games ponder or no search thread is idle
+     */
+    Pondering start(Position pos, boolean guess, Search search, int depth) {
+        if (running.incrementAndGet() > threads) {
+            running.decrementAndGet();
+            busy.increment();
+            return null;
+        }
+
+        final Pondering pondering = new Pondering(pos, guess, search);
+        final boolean started = search_executor.tryBackground(() -> {
+            final SearchResult result;
+            try {
+                result = search.run(depth);
+            } catch (RuntimeException e) {
+                running.decrementAndGet();
+                pondering.result.completeExceptionally(e);
+                return;
+            }
+            // before the result, so the next pondering of this game can start right away
+            running.decrementAndGet();
+            pondering.result.complete(result);
+        }, pondering::preempt);
+
+        if (!started) {
+            running.decrementAndGet();
+            busy.increment();
+            return null;
+        }
+        return pondering;
+    }
+
+    /** a search running on the opponent's time */
+    class Pondering {
+        private final Position pos;
+        private final boolean guess;
+        private final Search search;
+        private final long start_ns = System.nanoTime();
+        private final CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        private volatile boolean was_preempted = false;
+
+        private Pondering(Position pos, boolean guess, Search search) {
+            this.pos = pos.copy();
+            this.guess = guess;
+            this.search = search;
+        }
+
+        /** @return true if this is a guess and the game got to its position */
+        boolean matches(Position other) {
+            return guess
+                && pos.getHash() == other.getHash()
+                && pos.getPlayerToMove() == other.getPlayerToMove()
+                && pos.getOwnBitboard() == other.getOwnBitboard()
+                && pos.getOpponentBitboard() == other.getOpponentBitboard();
+        }
+
+        /**
+         * Lets the search run until it has had time_ms in total, then stops it.
+         *
+         * @return its result, null if it didn't complete an iteration or was preempted
+         */
+        SearchResult finish(long time_ms) {
+            final long elapsed_ms = (System.nanoTime() - start_ns) / 1_000_000;
+            SearchResult found;
+            try {
+                try {
+                    found = result.get(Math.max(0, time_ms - elapsed_ms), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // a stopped search returns what it has within a few thousand nodes
+                    search.stop();
+                    found = result.get();
+                }
+            } catch (InterruptedException e) {
+                search.stop();
+                Thread.currentThread().interrupt();
+                found = null;
+            } catch (ExecutionException e) {
+                found = null;
+            }
+
+            // a preempted search may have stopped long before it had its time
+            if (found == null || found.depth == 0 || was_preempted) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return found;
+        }
+
+        /** stops the search, without waiting for it */
+        void cancel() {
+            search.stop();
+            (guess ? misses : warmups).increment();
+        }
+
+        /** @return true when the search is over */
+        boolean isDone() {
+            return result.isDone();
+        }
+
+        // a request needs the thread
+        private void preempt() {
+            was_preempted = true;
+            search.stop();
+            preempted.increment();
+        }
+    }
+}
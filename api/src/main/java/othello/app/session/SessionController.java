@@ -0,0 +1,94 @@
+package othello.app.session;
+
+import othello.app.search.SearchExecutor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+    Games kept on the server, so the client sends a game id and a move
+    instead of the whole board.
+
+    Test:
+        http POST ':9000/games'
+        http POST ':9000/games/<id>/move?move=D3'
+        http POST ':9000/games/<id>/bot'
+*/
+
+@RestController
+@Slf4j
+@CrossOrigin(origins = "http://localhost:3000")
+public class SessionController {
+    private final SessionStore store;
+    private final SearchExecutor search_executor;
+
+    public SessionController(SessionStore store, SearchExecutor search_executor) {
+        this.store = store;
+        this.search_executor = search_executor;
+    }
+
+    // ponder=true lets the bot search while the human thinks, the default is sessions.ponder
+    @PostMapping("/games")
+    public GameState createGame(@RequestParam(value = "ponder", required = false) Boolean ponder) {
+        GameSession session = store.create(ponder);
+        log.info(String.format("Created session %s", session.getId()));
+        return session.getState();
+    }
+
+    @GetMapping("/games/{id}")
+    public GameState getGame(@PathVariable("id") String id) {
+        return find(id).getState();
+    }
+
+    @PostMapping("/games/{id}/move")
+    public GameState makeMove(
+        @PathVariable("id") String id,
+        @RequestParam(value = "move", required = true) String move
+    ) {
+        GameSession session = find(id);
+        try {
+            return session.play(move);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // searched on the SearchExecutor threads like /bot, 429 when they are all busy;
+    // the search is stopped when the request times out or the client is gone
+    @PostMapping("/games/{id}/bot")
+    public DeferredResult<GameState> makeBotMove(@PathVariable("id") String id) {
+        GameSession session = find(id);
+        GameSession.BotMove move = session.botMove();
+        return search_executor.submit(session.getBotTimeMs(), () -> {
+            try {
+                return move.play();
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        }, move::stop);
+    }
+
+    @DeleteMapping("/games/{id}")
+    public void deleteGame(@PathVariable("id") String id) {
+        if (!store.remove(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "no game " + id);
+        }
+    }
+
+    private GameSession find(String id) {
+        GameSession session = store.get(id);
+        if (session == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "no game " + id);
+        }
+        return session;
+    }
+}
@@ -0,0 +1,129 @@
+package othello.app.session;
+
+import othello.app.OpeningBookHolder;
+import othello.game.OpeningBook;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+    In-memory store of the running games.
+
+    The number of sessions is bounded since every bot keeps its own
+    transposition table (16 bytes per entry). Sessions nobody has touched
+    for sessions.idle-minutes are removed by a periodic sweep; when the
+    store is full anyway, creating a game evicts the least recently used one.
+    Removed games stop pondering.
+*/
+
+@Component
+@Slf4j
+public class SessionStore {
+    private final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
+
+    private final int max_sessions;
+    private final long idle_ms;
+    private final int bot_depth;
+    private final long bot_time_ms;
+    private final int tt_size_bits;
+    private final OpeningBook book;
+    private final Ponderer ponderer;
+
+    public SessionStore(
+        OpeningBookHolder book,
+        Ponderer ponderer,
+        @Value("${sessions.max:256}") int max_sessions,
+        @Value("${sessions.idle-minutes:30}") long idle_minutes,
+        @Value("${sessions.bot-depth:20}") int bot_depth,
+        @Value("${sessions.bot-time-ms:1000}") long bot_time_ms,
+        @Value("${sessions.tt-size-bits:16}") int tt_size_bits
+    ) {
+        assert max_sessions > 0;
+
+        this.max_sessions = max_sessions;
+        this.idle_ms = idle_minutes * 60 * 1000;
+        this.bot_depth = bot_depth;
+        this.bot_time_ms = bot_time_ms;
+        this.tt_size_bits = tt_size_bits;
+        this.book = book.getBook();
+        this.ponderer = ponderer;
+    }
+
+    /** @param ponder whether the bot searches on the human's time, null for the sessions.ponder default */
+    public GameSession create(Boolean ponder) {
+        if (sessions.size() >= max_sessions) {
+            evictIdle();
+        }
+        while (sessions.size() >= max_sessions) {
+            evictLeastRecentlyUsed();
+        }
+
+        boolean pondering = ponder != null ? ponder : ponderer.isEnabled();
+        GameSession session = new GameSession(UUID.randomUUID().toString(), bot_depth, bot_time_ms, tt_size_bits, book,
+            pondering ? ponderer : null);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    public GameSession create() {
+        return create(null);
+    }
+
+    /** @return the session, or null if there is none with this id */
+    public GameSession get(String id) {
+        GameSession session = sessions.get(id);
+        if (session != null) {
+            session.touch();
+        }
+        return session;
+    }
+
+    public boolean remove(String id) {
+        GameSession session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        session.close();
+        return true;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @Scheduled(fixedDelayString = "${sessions.sweep-ms:60000}")
+    public void evictIdle() {
+        long oldest_allowed = System.currentTimeMillis() - idle_ms;
+        int before = sessions.size();
+
+        sessions.values().removeIf(session -> {
+            if (session.getLastAccess() >= oldest_allowed) {
+                return false;
+            }
+            session.close();
+            return true;
+        });
+
+        int evicted = before - sessions.size();
+        if (evicted > 0) {
+            log.info(String.format("Evicted %d idle sessions, %d left", evicted, sessions.size()));
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        sessions.values().stream()
+            .min(Comparator.comparingLong(GameSession::getLastAccess))
+            .ifPresent(session -> {
+                sessions.remove(session.getId());
+                session.close();
+                log.info(String.format("Evicted session %s, the store is full", session.getId()));
+            });
+    }
+}
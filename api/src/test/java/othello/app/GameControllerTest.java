@@ -0,0 +1,160 @@
+package othello.app;
+
+import othello.Bitboard;
+import othello.Color;
+import othello.Field;
+import othello.Position;
+import othello.PositionCodec;
+
+import othello.game.EndgameSolver;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class GameControllerTest {
+    // X on B1 can't move, O on A1 can take it with C1
+    private static final String X_MUST_PASS = "OX" + ".".repeat(Position.FIELDS - 2);
+
+    @Autowired
+    private MockMvc mvc;
+
+    // a position from a random game with the given number of empty squares, the player to move can move
+    static Position randomPosition(long seed, int empties) {
+        Random random = new Random(seed);
+        while (true) {
+            Position pos = Position.initialPosition();
+            while (Bitboard.count(~(pos.getOwnBitboard() | pos.getOpponentBitboard())) > empties && !pos.isTerminal()) {
+                long moves = pos.legalMovesBitboard();
+                if (moves == 0) {
+                    pos.makePass();
+                    continue;
+                }
+                pos.makeMove(Bitboard.nth(moves, random.nextInt(Bitboard.count(moves))));
+            }
+            if (pos.hasLegalMove()) {
+                return pos;
+            }
+        }
+    }
+
+    @Test
+    void makeMoveWithCode() throws Exception {
+        Position pos = Position.initialPosition();
+        String body = mvc.perform(get("/make_move").param("code", PositionCodec.toBase64(pos)).param("move", "D3"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        pos.makeMove(Field.D3);
+        assertEquals(PositionCodec.toBase64(pos), body);
+    }
+
+    @Test
+    void passWithCodeHandsTheMoveToTheOpponent() throws Exception {
+        Position pos = Position.fromString(X_MUST_PASS, Color.X);
+        String body = mvc.perform(get("/make_move").param("code", PositionCodec.toBase64(pos)).param("move", "pass"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        Position after = PositionCodec.fromBase64(body);
+        assertEquals(Color.O, after.getPlayerToMove());
+        assertEquals(X_MUST_PASS, after.toAscii());
+    }
+
+    @Test
+    void passWithAsciiKeepsTheBoard() throws Exception {
+        mvc.perform(get("/make_move").param("pos", X_MUST_PASS).param("to_move", "X").param("move", "pass"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(X_MUST_PASS));
+    }
+
+    @Test
+    void illegalMovesAreRejected() throws Exception {
+        String code = PositionCodec.toBase64(Position.initialPosition());
+
+        // occupied, doesn't flip anything, not a field
+        for (String move : new String[] { "D4", "A1", "Z9" }) {
+            mvc.perform(get("/make_move").param("code", code).param("move", move))
+                .andExpect(status().isBadRequest());
+        }
+        // X has moves
+        mvc.perform(get("/make_move").param("code", code).param("move", "pass"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchSolvesTheEndgameExactly() throws Exception {
+        Position pos = randomPosition(1, 12);
+        int score = new EndgameSolver(EndgameSolver.Mode.EXACT, 0).solve(pos).score;
+
+        MvcResult started = mvc.perform(get("/search").param("code", PositionCodec.toBase64(pos)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.depth").value(12))
+            .andExpect(jsonPath("$.score").value(score))
+            // the solver, not the search
+            .andExpect(jsonPath("$.stats").value(nullValue()));
+    }
+
+    @Test
+    void botPlaysALegalMove() throws Exception {
+        Position pos = randomPosition(2, 40);
+
+        MvcResult started = mvc.perform(get("/bot").param("code", PositionCodec.toBase64(pos)).param("time_ms", "100"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String move = mvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        assertTrue(pos.legalMoves().contains(Field.valueOf(move)));
+    }
+
+    @Test
+    void batchAnswersEveryPosition() throws Exception {
+        String body = String.join("\n",
+            "{\"code\": \"" + PositionCodec.toBase64(randomPosition(3, 50)) + "\"}",
+            "{\"pos\": \"" + X_MUST_PASS + "\", \"to_move\": \"X\"}",
+            "{\"pos\": \"too short\", \"to_move\": \"X\"}",
+            "{\"pos\": \"" + "a".repeat(Position.FIELDS) + "\", \"to_move\": \"X\"}");
+
+        MvcResult started = mvc.perform(post("/bot/batch").param("depth", "3").content(body))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String[] lines = mvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString().split("\n");
+
+        // in the order they finish
+        assertEquals("[0, 1, 2, 3]", Arrays.stream(lines)
+            .map(line -> line.replaceAll(".*\"index\":(\\d+).*", "$1"))
+            .sorted()
+            .collect(Collectors.toList())
+            .toString());
+        assertTrue(Arrays.stream(lines).anyMatch(line -> line.contains("\"move\":\"pass\"")));
+        assertTrue(Arrays.stream(lines).anyMatch(line -> line.contains("pos must have 64 characters")));
+        assertTrue(Arrays.stream(lines).anyMatch(line -> line.contains("pos must only have X, O and .")));
+    }
+}
@@ -0,0 +1,70 @@
+package othello.app.search;
+
+import othello.Position;
+
+import othello.app.OpeningBookHolder;
+import othello.game.SearchResult;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class EngineTest {
+    private final SearchExecutor search_executor = new SearchExecutor(1, 4, 12, new SimpleMeterRegistry());
+    private final Engine engine = new Engine(new OpeningBookHolder(""), "");
+
+    @AfterEach
+    void shutdown() {
+        search_executor.shutdown();
+    }
+
+    private SearchResult bestMove(Engine.Job job) throws InterruptedException {
+        AtomicReference<SearchResult> result = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(search_executor.tryExecute(() -> {
+            result.set(job.bestMove(60, false));
+            done.countDown();
+        }));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return result.get();
+    }
+
+    @Test
+    void aJobStoppedBeforeItRunsReturnsRightAway() throws InterruptedException {
+        Position pos = Position.initialPosition();
+        Engine.Job job = engine.job(pos, 3000);
+
+        job.stop();
+        long start = System.nanoTime();
+        SearchResult result = bestMove(job);
+
+        assertTrue(pos.legalMoves().contains(result.move));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    void aJobStoppedWhileItRunsReturnsRightAway() throws InterruptedException {
+        Position pos = Position.initialPosition();
+        Engine.Job job = engine.job(pos, 3000);
+        AtomicReference<SearchResult> result = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        assertTrue(search_executor.tryExecute(() -> {
+            result.set(job.bestMove(60, false));
+            done.countDown();
+        }));
+        Thread.sleep(100);
+        job.stop();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(pos.legalMoves().contains(result.get().move));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000));
+    }
+}
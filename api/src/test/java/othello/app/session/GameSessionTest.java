@@ -0,0 +1,71 @@
+package othello.app.session;
+
+import othello.Field;
+import othello.Position;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class GameSessionTest {
+    @Test
+    void movesAreCheckedAndRecorded() {
+        GameSession session = new GameSession("test", 4, 100, 12, null);
+
+        session.play("d3");
+        GameState state = session.play("C5");
+
+        assertEquals(List.of("d3", "C5"), state.moves);
+        assertThrows(IllegalArgumentException.class, () -> session.play("A1"));
+        assertThrows(IllegalArgumentException.class, () -> session.play("Z9"));
+        assertThrows(IllegalArgumentException.class, () -> session.play(GameSession.PASS));
+        assertEquals(2, session.getState().moves.size());
+    }
+
+    @Test
+    void theBotPlaysALegalMove() {
+        GameSession session = new GameSession("test", 4, 100, 12, null);
+        Position pos = Position.initialPosition();
+
+        GameState state = session.playBot();
+
+        assertEquals(1, state.moves.size());
+        assertTrue(pos.legalMoves().contains(Field.valueOf(state.moves.get(0))));
+    }
+
+    @Test
+    void aStoppedBotPlaysRightAway() throws InterruptedException {
+        // no time limit, only the stop ends the search
+        GameSession session = new GameSession("test", 60, 0, 16, null);
+        session.play("D3");
+        GameSession.BotMove move = session.botMove();
+        Thread thread = new Thread(move::play);
+
+        thread.start();
+        Thread.sleep(100);
+        move.stop();
+        thread.join(2000);
+
+        assertFalse(thread.isAlive());
+        assertEquals(2, session.getState().moves.size());
+    }
+
+    @Test
+    void aBotMoveStoppedBeforeItStartsPlaysRightAway() {
+        GameSession session = new GameSession("test", 60, 0, 16, null);
+        session.play("D3");
+        GameSession.BotMove move = session.botMove();
+
+        move.stop();
+        long start = System.nanoTime();
+        GameState state = move.play();
+
+        assertEquals(2, state.moves.size());
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+    }
+}
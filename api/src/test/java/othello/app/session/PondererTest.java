@@ -0,0 +1,180 @@
+package othello.app.session;
+
+import othello.Field;
+import othello.Position;
+
+import othello.app.search.SearchExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PondererTest {
+    // long enough that only a stop ends a pondering within a test
+    private static final long PONDER_MAX_MS = 30000;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<GameSession> sessions = new ArrayList<>();
+    private SearchExecutor search_executor;
+
+    @AfterEach
+    void shutdown() {
+        sessions.forEach(GameSession::close);
+        if (search_executor != null) {
+            search_executor.shutdown();
+        }
+    }
+
+    private Ponderer ponderer(int search_threads, int ponder_threads) {
+        search_executor = new SearchExecutor(search_threads, 4, 12, registry);
+        return new Ponderer(true, ponder_threads, PONDER_MAX_MS, search_executor, registry);
+    }
+
+    private GameSession session(Ponderer ponderer) {
+        GameSession session = new GameSession("test-" + sessions.size(), 20, 200, 16, null, ponderer);
+        sessions.add(session);
+        return session;
+    }
+
+    // plays d3 and the bot's reply, the bot then ponders the human's move
+    private static Ponderer.Pondering botMoved(GameSession session) {
+        session.play("d3");
+        session.playBot();
+        return session.pondering();
+    }
+
+    // the move of the side to move that leads to the pondered position, null if none does
+    private static Field guessedMove(GameSession session, Ponderer.Pondering pondering) {
+        Position pos = Position.initialPosition();
+        for (String move : session.getState().moves) {
+            pos.makeMove(Field.valueOf(move.toUpperCase()));
+        }
+        for (Field move : pos.legalMoves()) {
+            if (pondering.matches(pos.applyMove(move))) {
+                return move;
+            }
+        }
+        return null;
+    }
+
+    private double count(String result) {
+        return registry.get("othello.ponder").tag("result", result).counter().count();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void theGuessedMoveIsAPonderHit() {
+        GameSession session = session(ponderer(2, 1));
+
+        Ponderer.Pondering pondering = botMoved(session);
+        assertNotNull(pondering);
+        Field guess = guessedMove(session, pondering);
+        assertNotNull(guess);
+
+        session.play(guess.toString());
+        GameState state = session.playBot();
+
+        assertEquals(4, state.moves.size());
+        assertEquals(1, count("hit"));
+        assertEquals(0, count("miss"));
+    }
+
+    @Test
+    void anotherMoveCancelsThePondering() throws InterruptedException {
+        GameSession session = session(ponderer(2, 1));
+
+        Ponderer.Pondering pondering = botMoved(session);
+        assertNotNull(pondering);
+        Field guess = guessedMove(session, pondering);
+        Field other = null;
+        Position pos = Position.initialPosition();
+        for (String move : session.getState().moves) {
+            pos.makeMove(Field.valueOf(move.toUpperCase()));
+        }
+        for (Field move : pos.legalMoves()) {
+            if (move != guess) {
+                other = move;
+            }
+        }
+
+        session.play(other.toString());
+
+        assertNull(session.pondering());
+        assertEquals(1, count("miss"));
+        // stopped long before ponder-max-ms
+        waitFor(pondering::isDone);
+        waitFor(() -> search_executor.getActiveCount() == 0);
+    }
+
+    @Test
+    void aRequestPreemptsThePondering() throws InterruptedException {
+        GameSession session = session(ponderer(1, 1));
+
+        Ponderer.Pondering pondering = botMoved(session);
+        assertNotNull(pondering);
+        waitFor(() -> search_executor.getActiveCount() == 1);
+
+        CountDownLatch ran = new CountDownLatch(1);
+        assertTrue(search_executor.tryExecute(ran::countDown));
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(pondering.isDone());
+        assertEquals(1, count("preempted"));
+
+        // a preempted search isn't played, even on the guessed move
+        session.play(guessedMove(session, pondering).toString());
+        session.playBot();
+        assertEquals(0, count("hit"));
+        assertEquals(1, count("miss"));
+    }
+
+    @Test
+    void noPonderingWithoutAnIdleThread() throws InterruptedException {
+        GameSession session = session(ponderer(1, 1));
+        CountDownLatch release = new CountDownLatch(1);
+        assertTrue(search_executor.tryExecute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        waitFor(() -> search_executor.getActiveCount() == 1);
+
+        try {
+            assertNull(botMoved(session));
+            assertEquals(1, count("busy"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void ponderThreadsLimitsThePonderingGames() {
+        Ponderer ponderer = ponderer(4, 1);
+        GameSession first = session(ponderer);
+        GameSession second = session(ponderer);
+
+        assertNotNull(botMoved(first));
+        assertNull(botMoved(second));
+        assertEquals(1, count("busy"));
+    }
+}
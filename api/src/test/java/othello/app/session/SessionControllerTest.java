@@ -0,0 +1,81 @@
+package othello.app.session;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@SpringBootTest(properties = { "sessions.bot-time-ms=100", "sessions.bot-depth=4" })
+@AutoConfigureMockMvc
+class SessionControllerTest {
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    private String createGame() throws Exception {
+        String body = mvc.perform(post("/games"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.to_move").value("X"))
+            .andExpect(jsonPath("$.moves", hasSize(0)))
+            .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(body).get("id").asText();
+    }
+
+    @Test
+    void humanAndBotMoves() throws Exception {
+        String id = createGame();
+
+        mvc.perform(post("/games/{id}/move", id).param("move", "D3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.to_move").value("O"))
+            .andExpect(jsonPath("$.moves[0]").value("D3"));
+
+        MvcResult started = mvc.perform(post("/games/{id}/bot", id))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.to_move").value("X"))
+            .andExpect(jsonPath("$.moves", hasSize(2)));
+
+        mvc.perform(get("/games/{id}", id))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.moves", hasSize(2)));
+    }
+
+    @Test
+    void illegalMovesAreBadRequests() throws Exception {
+        String id = createGame();
+
+        mvc.perform(post("/games/{id}/move", id).param("move", "A1"))
+            .andExpect(status().isBadRequest());
+        mvc.perform(post("/games/{id}/move", id).param("move", "pass"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void deletedGamesAreGone() throws Exception {
+        String id = createGame();
+
+        mvc.perform(delete("/games/{id}", id))
+            .andExpect(status().isOk());
+        mvc.perform(get("/games/{id}", id))
+            .andExpect(status().isNotFound());
+        mvc.perform(post("/games/{id}/move", id).param("move", "D3"))
+            .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,84 @@
+package othello.app.session;
+
+import othello.app.OpeningBookHolder;
+import othello.app.search.SearchExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SessionStoreTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SearchExecutor search_executor = new SearchExecutor(2, 4, 12, registry);
+    private final Ponderer ponderer = new Ponderer(false, 1, 1000, search_executor, registry);
+
+    @AfterEach
+    void shutdown() {
+        search_executor.shutdown();
+    }
+
+    private SessionStore store(int max_sessions, long idle_minutes) {
+        return new SessionStore(new OpeningBookHolder(""), ponderer, max_sessions, idle_minutes, 4, 100, 12);
+    }
+
+    @Test
+    void createdSessionsCanBeFoundAndRemoved() {
+        SessionStore store = store(8, 30);
+        GameSession session = store.create();
+
+        assertSame(session, store.get(session.getId()));
+        assertTrue(store.remove(session.getId()));
+        assertNull(store.get(session.getId()));
+        assertFalse(store.remove(session.getId()));
+    }
+
+    @Test
+    void idleSessionsAreEvicted() throws InterruptedException {
+        // every session older than now is idle
+        SessionStore store = store(8, 0);
+        GameSession session = store.create();
+        Thread.sleep(5);
+
+        store.evictIdle();
+
+        assertEquals(0, store.size());
+        assertNull(store.get(session.getId()));
+    }
+
+    @Test
+    void recentlyUsedSessionsAreNotEvicted() {
+        SessionStore store = store(8, 30);
+        store.create();
+        store.create();
+
+        store.evictIdle();
+
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void aFullStoreEvictsTheLeastRecentlyUsedSession() throws InterruptedException {
+        SessionStore store = store(2, 30);
+        GameSession first = store.create();
+        Thread.sleep(5);
+        GameSession second = store.create();
+        Thread.sleep(5);
+        // the first one is now the most recently used
+        store.get(first.getId());
+        Thread.sleep(5);
+
+        GameSession third = store.create();
+
+        assertEquals(2, store.size());
+        assertNotNull(store.get(first.getId()));
+        assertNull(store.get(second.getId()));
+        assertNotNull(store.get(third.getId()));
+    }
+}
@@ -0,0 +1,91 @@
+package othello;
+
+import othello.game.PositionSuite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * flipped discs of every legal move of the midgame suite, with each of the
+ * implementations; in package othello to reach the square-by-square MoveGenerator
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FlipBenchmark {
+    private static final int POSITIONS = 64;
+    private static final int PLIES = 24;
+
+    private int[] squares;
+    private long[] owns;
+    private long[] opps;
+    private MoveGenerator[] generators;
+    private Field[] fields;
+
+    @Setup
+    public void setUp() {
+        final List<int[]> moves = new ArrayList<>();
+        final List<Position> positions = PositionSuite.Generate(POSITIONS, PLIES);
+        for (int p = 0; p < positions.size(); p++) {
+            for (long rest = positions.get(p).legalMovesBitboard(); rest != 0; rest &= rest - 1) {
+                moves.add(new int[] { p, Long.numberOfTrailingZeros(rest) });
+            }
+        }
+
+        squares = new int[moves.size()];
+        owns = new long[moves.size()];
+        opps = new long[moves.size()];
+        generators = new MoveGenerator[moves.size()];
+        fields = new Field[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            final Position pos = positions.get(moves.get(i)[0]);
+            squares[i] = moves.get(i)[1];
+            owns[i] = pos.getOwnBitboard();
+            opps[i] = pos.getOpponentBitboard();
+            generators[i] = new MoveGenerator(pos.getPlayerToMove(), pos.getBoard());
+            fields[i] = Field.fromIndex(squares[i]);
+        }
+    }
+
+    // a score is the time for all the legal moves of the suite, a few hundred of them;
+    // the flips are XOR-ed together rather than passed to a Blackhole one by one, which
+    // would cost more than the lookups
+
+    @Benchmark
+    public long tables() {
+        long result = 0;
+        for (int i = 0; i < squares.length; i++) {
+            result ^= FlipTables.flipsFor(squares[i], owns[i], opps[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long shifts() {
+        long result = 0;
+        for (int i = 0; i < squares.length; i++) {
+            result ^= Bitboard.flipsByShifts(squares[i], owns[i], opps[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long koggeStone() {
+        long result = 0;
+        for (int i = 0; i < squares.length; i++) {
+            result ^= Bitboard.flipsKoggeStone(squares[i], owns[i], opps[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void moveGenerator(Blackhole blackhole) {
+        for (int i = 0; i < squares.length; i++) {
+            blackhole.consume(generators[i].makeMove(fields[i]));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package othello.bench;
+
+import othello.*;
+import othello.game.PositionSuite;
+
+import java.util.List;
+
+/** the fixed positions all the benchmarks run on, one suite per game phase */
+class BenchmarkPositions {
+    final static int COUNT = 64;
+
+    static Position[] Opening() {
+        return Generate(8);
+    }
+
+    static Position[] Midgame() {
+        return Generate(24);
+    }
+
+    static Position[] Endgame() {
+        return Generate(44);
+    }
+
+    /** @param stage opening, midgame or endgame, for a @Param of the benchmarks */
+    static Position[] ForStage(String stage) {
+        switch (stage) {
+            case "opening": return Opening();
+            case "midgame": return Midgame();
+            case "endgame": return Endgame();
+            default:
+                throw new IllegalArgumentException("unknown stage " + stage);
+        }
+    }
+
+    private static Position[] Generate(int plies) {
+        List<Position> positions = PositionSuite.Generate(COUNT, plies);
+        return positions.toArray(new Position[0]);
+    }
+}
@@ -0,0 +1,44 @@
+package othello.bench;
+
+import othello.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** every operation plays the first legal move of a position */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MakeMoveBenchmark {
+    private Position[] positions;
+    private Field[] moves;
+
+    @Setup
+    public void setUp() {
+        positions = BenchmarkPositions.Midgame();
+        moves = new Field[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            moves[i] = positions[i].legalMoves().get(0);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void makeAndUnmakeMove(Blackhole blackhole) {
+        for (int i = 0; i < positions.length; i++) {
+            final long flipped = positions[i].makeMove(moves[i]);
+            positions[i].unmakeMove(moves[i], flipped);
+            blackhole.consume(flipped);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void applyMove(Blackhole blackhole) {
+        for (int i = 0; i < positions.length; i++) {
+            blackhole.consume(positions[i].applyMove(moves[i]));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package othello.bench;
+
+import othello.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoveGenerationBenchmark {
+    @Param({"opening", "midgame", "endgame"})
+    public String stage;
+
+    private Position[] positions;
+
+    @Setup
+    public void setUp() {
+        positions = BenchmarkPositions.ForStage(stage);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void legalMoves(Blackhole blackhole) {
+        for (Position pos : positions) {
+            blackhole.consume(pos.legalMoves());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void legalMovesBitboard(Blackhole blackhole) {
+        for (Position pos : positions) {
+            blackhole.consume(pos.legalMovesBitboard());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void generateStatus(Blackhole blackhole) {
+        for (Position pos : positions) {
+            blackhole.consume(pos.generateStatus());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package othello.bench;
+
+import othello.*;
+import othello.game.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/** search time and nodes per position with the move ordering heuristics and in board order */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class MoveOrderingBenchmark {
+    @Param({"6", "8"})
+    public int depth;
+
+    @Param({"true", "false"})
+    public boolean heuristics;
+
+    private Position[] positions;
+    private TranspositionTable tt;
+
+    /** reported next to the time, the number that move ordering is meant to bring down */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup
+    public void setUp() {
+        positions = BenchmarkPositions.Midgame();
+        tt = new TranspositionTable(16);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public long search(Nodes counter) {
+        long best_moves = 0;
+        for (Position pos : positions) {
+            // a cold table for every position, so runs don't help each other
+            tt.clear();
+            final SearchResult result = new Search(pos, 0, tt, Evaluator.SQUARE_WEIGHTS, 0,
+                new MoveOrdering(heuristics)).run(depth);
+            counter.nodes += result.nodes;
+            best_moves += result.move.toIndex();
+        }
+        return best_moves;
+    }
+}
@@ -0,0 +1,60 @@
+package othello.bench;
+
+import othello.*;
+import othello.game.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** time to pick a move at a fixed depth, the score is the average over the suite */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class SearchBenchmark {
+    @Param({"2", "3", "4"})
+    public int depth;
+
+    @Param({"opening", "midgame", "endgame"})
+    public String stage;
+
+    private Position[] positions;
+    private final Evaluator evaluator = new PatternEvaluator();
+
+    @Setup
+    public void setUp() {
+        positions = BenchmarkPositions.ForStage(stage);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void minimaxBestMove(Blackhole blackhole) {
+        final MinimaxPlayer player = new MinimaxPlayer("bench", depth);
+        for (Position pos : positions) {
+            blackhole.consume(player.bestMove(pos, pos.legalMovesBitboard()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void alphaBetaBestMove(Blackhole blackhole) {
+        for (Position pos : positions) {
+            // a fresh table for every position, so runs don't help each other
+            final AlphaBetaPlayer player = new AlphaBetaPlayer("bench", depth, 0, new TranspositionTable(12));
+            blackhole.consume(player.bestMove(pos, pos.legalMovesBitboard()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void alphaBetaPatternsBestMove(Blackhole blackhole) {
+        for (Position pos : positions) {
+            final AlphaBetaPlayer player = new AlphaBetaPlayer("bench", depth, 0, new TranspositionTable(12));
+            player.evaluator = evaluator;
+            blackhole.consume(player.bestMove(pos, pos.legalMovesBitboard()));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package othello.bench;
+
+import othello.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmark {
+    private Position[] positions;
+    private String[] asciis;
+    private Color[] colors;
+    private String[] codes;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        positions = BenchmarkPositions.Midgame();
+        asciis = new String[positions.length];
+        colors = new Color[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            asciis[i] = positions[i].toAscii();
+            colors[i] = positions[i].getPlayerToMove();
+        }
+
+        codes = new String[positions.length];
+        buffer = ByteBuffer.allocateDirect(positions.length * PositionCodec.BYTES);
+        for (int i = 0; i < positions.length; i++) {
+            codes[i] = PositionCodec.toBase64(positions[i]);
+            PositionCodec.write(positions[i], buffer, i * PositionCodec.BYTES);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void fromString(Blackhole blackhole) {
+        for (int i = 0; i < asciis.length; i++) {
+            blackhole.consume(Position.fromString(asciis[i], colors[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void toAscii(Blackhole blackhole) {
+        for (Position pos : positions) {
+            blackhole.consume(pos.toAscii());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void fromBase64(Blackhole blackhole) {
+        for (String code : codes) {
+            blackhole.consume(PositionCodec.fromBase64(code));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void toBase64(Blackhole blackhole) {
+        for (Position pos : positions) {
+            blackhole.consume(PositionCodec.toBase64(pos));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void readBuffer(Blackhole blackhole) {
+        for (int i = 0; i < positions.length; i++) {
+            blackhole.consume(PositionCodec.read(buffer, i * PositionCodec.BYTES));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void writeBuffer() {
+        for (int i = 0; i < positions.length; i++) {
+            PositionCodec.write(positions[i], buffer, i * PositionCodec.BYTES);
+        }
+    }
+}
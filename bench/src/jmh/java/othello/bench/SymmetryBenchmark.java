@@ -0,0 +1,82 @@
+package othello.bench;
+
+import othello.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** canonical forms and transforms of the midgame positions */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SymmetryBenchmark {
+    private Position[] positions;
+    private Square[][] boards;
+
+    @Setup
+    public void setUp() {
+        positions = BenchmarkPositions.Midgame();
+        boards = new Square[positions.length][];
+        for (int i = 0; i < positions.length; i++) {
+            boards[i] = positions[i].getBoard();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void canonicalSymmetry(Blackhole blackhole) {
+        for (Position pos : positions) {
+            blackhole.consume(pos.canonicalSymmetry());
+        }
+    }
+
+    // every symmetry applied to both bitboards, the way canonical used to work
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void canonicalSymmetryAllImages(Blackhole blackhole) {
+        for (Position pos : positions) {
+            final long x = pos.getBitboard(Color.X);
+            final long o = pos.getBitboard(Color.O);
+            int best = Symmetry.IDENTITY;
+            long best_x = x;
+            long best_o = o;
+            for (int s = 1; s < Symmetry.COUNT; s++) {
+                final long tx = Symmetry.transform(s, x);
+                final long to = Symmetry.transform(s, o);
+                final int cmp = Long.compareUnsigned(tx, best_x);
+                if (cmp < 0 || cmp == 0 && Long.compareUnsigned(to, best_o) < 0) {
+                    best = s;
+                    best_x = tx;
+                    best_o = to;
+                }
+            }
+            blackhole.consume(best);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void canonicalHash(Blackhole blackhole) {
+        for (Position pos : positions) {
+            blackhole.consume(pos.canonicalHash());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void transformPosition(Blackhole blackhole) {
+        for (Position pos : positions) {
+            blackhole.consume(pos.transform(Symmetry.MIRROR | Symmetry.TRANSPOSE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void transformBoard(Blackhole blackhole) {
+        for (Square[] board : boards) {
+            blackhole.consume(Symmetry.transform(Symmetry.MIRROR | Symmetry.TRANSPOSE, board));
+        }
+    }
+}
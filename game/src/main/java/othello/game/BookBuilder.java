@@ -0,0 +1,76 @@
+package othello.game;
+
+import othello.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/*
+    Builds an opening book from self-play.
+
+    Every game starts with a few random moves, so the games spread over
+    different openings, and then follows the searched moves. Every position
+    up to `plies` is searched to `depth` (unless the book already has it
+    searched that deep) and its best move goes to the book. Games are played
+    in parallel, each with its own transposition table.
+
+    usage: book <file> [games] [plies] [depth] [random_plies]
+*/
+
+public class BookBuilder {
+    public final static long SEED = 20210501;
+
+    public static void Build(String[] args) {
+        final Path path = Paths.get(args[0]);
+        final int games = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        final int plies = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        final int depth = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        final int random_plies = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+
+        final OpeningBook.Builder builder = new OpeningBook.Builder();
+        final long start = System.nanoTime();
+
+        IntStream.range(0, games).parallel().forEach(game ->
+            PlayGame(builder, new Random(SEED + game), plies, depth, random_plies));
+
+        final OpeningBook book = builder.build();
+        try {
+            book.writeTo(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("wrote %d positions to %s in %.1f s", book.size(), path, seconds));
+    }
+
+    private static void PlayGame(OpeningBook.Builder builder, Random random, int plies, int depth, int random_plies) {
+        final TranspositionTable tt = new TranspositionTable(16);
+        final Position pos = Position.initialPosition();
+
+        for (int ply = 0; ply < plies; ply++) {
+            final Status status = pos.generateStatus();
+            if (status.isGameFinished())
+                return;
+            if (status.isPassForced()) {
+                pos.makePass();
+            }
+
+            SearchResult result = builder.probe(pos);
+            if (result == null || result.depth < depth) {
+                tt.newSearch();
+                result = new Search(pos, 0, tt).run(depth);
+                builder.add(pos, result.move, result.score, result.depth);
+            }
+
+            final Field move = ply < random_plies
+                ? status.moves.get(random.nextInt(status.moves.size()))
+                : result.move;
+            pos.makeMove(move);
+        }
+    }
+}
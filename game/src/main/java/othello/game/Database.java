@@ -0,0 +1,85 @@
+package othello.game;
+
+import othello.*;
+import othello.db.GameImporter;
+import othello.db.PositionDatabase;
+import othello.db.PositionStats;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/*
+    Commands for the position database, see othello.db.
+
+    import reads a file with one game per line ("f5d6c3...") and writes the
+    database; positions after `plies` moves are left out, `chunk` bounds
+    the memory (distinct positions kept before a run is written to disk,
+    about 40 bytes each).
+
+    query prints the moves played from the position after the given moves,
+    with their results.
+
+    usage: import <games> <database> [plies=N] [chunk=N] [temp=<dir>]
+           query <database> [moves]
+*/
+
+public class Database {
+    public static void Import(String[] args) {
+        if (args.length < 2) {
+            System.out.println("usage: import <games> <database> [plies=N] [chunk=N] [temp=<dir>]");
+            return;
+        }
+
+        final Path games = Paths.get(args[0]);
+        final Path database = Paths.get(args[1]);
+        int plies = Position.FIELDS;
+        int chunk = GameImporter.DEFAULT_CHUNK;
+        Path temp = database.toAbsolutePath().getParent();
+
+        for (int i = 2; i < args.length; i++) {
+            final String[] option = args[i].split("=", 2);
+            switch (option[0]) {
+                case "plies": plies = Integer.parseInt(option[1]); break;
+                case "chunk": chunk = Integer.parseInt(option[1]); break;
+                case "temp": temp = Paths.get(option[1]); break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        final long start = System.nanoTime();
+        final GameImporter importer = new GameImporter(plies, chunk, temp);
+        try (BufferedReader in = Files.newBufferedReader(games)) {
+            importer.importGames(in, database);
+            final long records = PositionDatabase.load(database).size();
+
+            final double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("imported %d games (%d skipped), %d positions, %d records in %s in %.1f s",
+                importer.getImported(), importer.getSkipped(), importer.getPositions(), records, database, seconds));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void Query(String[] args) {
+        if (args.length < 1) {
+            System.out.println("usage: query <database> [moves]");
+            return;
+        }
+
+        final PositionStats stats;
+        final Position pos = args.length > 1 ? GameRecord.parse(args[1]).replay() : Position.initialPosition();
+        try {
+            stats = PositionDatabase.load(Paths.get(args[0])).lookup(pos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.out.println(pos.toAscii());
+        System.out.println(stats == null ? "not in the database" : stats.toString());
+    }
+}
@@ -3,10 +3,58 @@ package othello.game;
 import othello.*;
 import othello.game.Perft;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 public class Game {
     public static void main(String[] args) {
-        // if (args[0].equals("pertf")) {
-        Perft.Calculate();
+        final String command = args.length > 0 ? args[0] : "perft";
+        final String[] rest = args.length > 0 ? Arrays.copyOfRange(args, 1, args.length) : args;
+
+        switch (command) {
+            case "perft":
+                Perft.Calculate(rest);
+                break;
+            case "play":
+                PlayGameTop(rest);
+                break;
+            case "smp":
+                SmpBenchmark.Run(rest);
+                break;
+            case "weights":
+                WriteWeights(rest);
+                break;
+            case "book":
+                BookBuilder.Build(rest);
+                break;
+            case "tournament":
+                Tournament.Run(rest);
+                break;
+            case "import":
+                Database.Import(rest);
+                break;
+            case "query":
+                Database.Query(rest);
+                break;
+            default:
+                System.out.println("usage: game [perft [max_depth] [threads] [hash_bits] | play [games] [book] | smp [depth] [max_threads] [positions] | weights <file> [stages] | book <file> [games] [plies] [depth] [random_plies] | tournament <player> <player> [options] | import <games> <database> [options] | query <database> [moves]]");
+        }
+    }
+
+    // writes the default pattern weights, a starting point for tuning
+    private static void WriteWeights(String[] args) {
+        final Path path = Paths.get(args[0]);
+        final int stages = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        try {
+            PatternWeights.fromSquareWeights(stages, 8, 4).writeTo(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println(String.format("wrote %d stages to %s", stages, path));
     }
 
     private static void PlayGameTop(String[] args) {
@@ -21,14 +69,23 @@ public class Game {
         if (args.length > 0)
             num_games = Integer.parseInt(args[0]);
 
-        PlayManyGames(player_1, player_2, num_games);
+        OpeningBook book = null;
+        if (args.length > 1) {
+            try {
+                book = OpeningBook.load(Paths.get(args[1]));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        PlayManyGames(player_1, player_2, num_games, book);
     }
 
     private static int Percentage(int ok, int all) {
         return 100 * ok / all;
     }
 
-    private static void PlayManyGames(Player player_1, Player player_2, int num_games) {
+    private static void PlayManyGames(Player player_1, Player player_2, int num_games, OpeningBook book) {
         Player[] players = new Player[]{ player_1, player_2 };
 
         int[] results = new int[] { 0, 0};
@@ -37,7 +94,7 @@ public class Game {
         for (int i = 0; i < num_games; ++i) {
             // flip players every other game
             final boolean flip_players = (i % 2 == 1);
-            final Color winner = PlayGame(players, flip_players);
+            final Color winner = PlayGame(players, flip_players, book);
 
             if (winner == null) {
                 ++draws;
@@ -58,6 +115,11 @@ public class Game {
 
     /** @return color of the winner, or null if draw */
     public static Color PlayGame(Player[] players, boolean flip_players) {
+        return PlayGame(players, flip_players, null);
+    }
+
+    /** moves found in the book (if not null) are played without asking the players */
+    public static Color PlayGame(Player[] players, boolean flip_players, OpeningBook book) {
         Position pos = Position.initialPosition();
         int i = 0;
 
@@ -80,10 +142,13 @@ public class Game {
 
             final int curr_player = flip_players ? (1-i%2) : i%2;
             final Player player = players[curr_player];
-            final Field move = player.bestMove(pos, status.moves);
+            final SearchResult from_book = book == null ? null : book.probe(pos);
+            final Field move = from_book != null
+                ? from_book.move
+                : Field.fromIndex(player.bestMove(pos, pos.legalMovesBitboard()));
             pos.makeMove(move);
 
-            System.out.println("Move made by player" + player.getName());
+            System.out.println("Move made by player" + player.getName() + (from_book != null ? " (book)" : ""));
 
             i++;
         }
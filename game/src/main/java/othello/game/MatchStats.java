@@ -0,0 +1,114 @@
+package othello.game;
+
+/*
+    Results of a match between two players, from the perspective of the
+    first one, and the usual statistics on them.
+
+    Elo difference: from the score s (wins + draws / 2 per game) by
+    elo = -400 log10(1/s - 1), with a 95% interval from the variance of the
+    per-game results (trinomial, so draws are accounted for).
+
+    LOS (likelihood of superiority): the probability that the first player
+    is stronger, from the wins and losses only.
+
+    SPRT: the sequential probability ratio test of H0: elo = elo0 against
+    H1: elo = elo1, using the normal approximation of the log-likelihood
+    ratio. The match can stop as soon as the LLR leaves the bounds given by
+    the error rates alpha and beta.
+*/
+
+public class MatchStats {
+    public final int wins;
+    public final int draws;
+    public final int losses;
+
+    public MatchStats(int wins, int draws, int losses) {
+        this.wins = wins;
+        this.draws = draws;
+        this.losses = losses;
+    }
+
+    public int games() {
+        return wins + draws + losses;
+    }
+
+    public double score() {
+        return games() == 0 ? 0.5 : (wins + 0.5 * draws) / games();
+    }
+
+    public double elo() {
+        return EloFromScore(score());
+    }
+
+    /** @return half the width of the 95% confidence interval of elo() */
+    public double eloError() {
+        final int n = games();
+        if (n < 2)
+            return Double.POSITIVE_INFINITY;
+
+        final double s = score();
+        final double deviation = Math.sqrt(variance() / n);
+        return (EloFromScore(s + 1.959964 * deviation) - EloFromScore(s - 1.959964 * deviation)) / 2;
+    }
+
+    public double los() {
+        if (wins + losses == 0)
+            return 0.5;
+        return 0.5 * (1 + Erf((wins - losses) / Math.sqrt(2.0 * (wins + losses))));
+    }
+
+    /** @return log-likelihood ratio of elo1 against elo0 */
+    public double llr(double elo0, double elo1) {
+        final double variance = variance();
+        if (wins == 0 || losses == 0 || variance == 0)
+            return 0;
+
+        final double s0 = ScoreFromElo(elo0);
+        final double s1 = ScoreFromElo(elo1);
+        return (s1 - s0) * (2 * score() - s0 - s1) / (2 * variance) * games();
+    }
+
+    public static double LowerBound(double alpha, double beta) {
+        return Math.log(beta / (1 - alpha));
+    }
+
+    public static double UpperBound(double alpha, double beta) {
+        return Math.log((1 - beta) / alpha);
+    }
+
+    // variance of the result of a single game
+    private double variance() {
+        final int n = games();
+        if (n == 0)
+            return 0;
+
+        final double s = score();
+        return (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s) + losses * s * s) / n;
+    }
+
+    static double EloFromScore(double score) {
+        if (score <= 0)
+            return Double.NEGATIVE_INFINITY;
+        if (score >= 1)
+            return Double.POSITIVE_INFINITY;
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    static double ScoreFromElo(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    // Abramowitz and Stegun 7.1.26, the error is below 1.5e-7
+    static double Erf(double x) {
+        final double t = 1 / (1 + 0.3275911 * Math.abs(x));
+        final double y = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741
+            + t * (-1.453152027 + t * 1.061405429)))) * Math.exp(-x * x);
+        return x >= 0 ? y : -y;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("+%d =%d -%d  score %.1f%%  elo %+.1f +/- %.1f  LOS %.1f%%",
+            wins, draws, losses, 100 * score(), elo(), eloError(), 100 * los());
+    }
+}
@@ -1,29 +1,153 @@
 package othello.game;
 
 import othello.*;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+    Counts the leaves of the game tree to a given depth.
+
+    Conventions as in http://www.aartbik.com/strategy.php: a forced pass
+    counts as a move, and a game that finishes before the last ply counts
+    as one leaf. At the last ply the leaves are counted in bulk with a
+    popcount of the legal-move bitboard.
+
+    The parallel version expands the tree to SPLIT_DEPTH plies and counts
+    the subtrees on a ForkJoinPool. Subtree sizes can be cached in a
+    shared PerftHash, which pays off because of transpositions.
+
+    usage: perft [max_depth] [threads] [hash_bits], hash_bits = 0 disables the cache
+*/
 
 public class Perft {
+    private final static int SPLIT_DEPTH = 4;
+
+    // subtrees smaller than this are cheaper to recount than to look up
+    private final static int MIN_HASH_DEPTH = 3;
+
     public static void Calculate() {
-        final int MAX_DEPTH = 10;
+        Calculate(new String[0]);
+    }
+
+    public static void Calculate(String[] args) {
+        final int max_depth = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        final int threads = args.length > 1
+            ? Integer.parseInt(args[1])
+            : Runtime.getRuntime().availableProcessors();
+        final int hash_bits = args.length > 2 ? Integer.parseInt(args[2]) : 22;
+
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        final PerftHash hash = hash_bits > 0 ? new PerftHash(hash_bits) : null;
+
+        System.out.println(String.format("perft with %d threads, hash %s", threads,
+            hash == null ? "off" : (1 << hash_bits) + " entries"));
+
+        for (int depth = 1; depth <= max_depth; ++depth) {
+            final long start = System.nanoTime();
+            final long node_count = ParallelNodesAtDepth(Position.initialPosition(), depth, pool, hash);
+            final double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println(String.format("%2d: %15d %10.3fs %10.1f Mnps",
+                depth, node_count, seconds, node_count / seconds / 1e6));
+        }
+
+        pool.shutdown();
+    }
+
+    public static long ParallelNodesAtDepth(Position pos, int depth, ForkJoinPool pool, PerftHash hash) {
+        if (depth <= SPLIT_DEPTH) {
+            return NodesAtDepth(pos.copy(), depth, hash);
+        }
 
-        for (int depth = 0; depth < MAX_DEPTH; ++depth) {
-            long node_count = NodesAtDepth(Position.initialPosition(), depth);
+        final List<Position> subtrees = new ArrayList<Position>();
+        Split(pos.copy(), SPLIT_DEPTH, subtrees);
 
-            System.out.println(String.format("%2d: %11d", depth, node_count));
+        final int remaining = depth - SPLIT_DEPTH;
+        try {
+            return pool.submit(() -> subtrees
+                .parallelStream()
+                .mapToLong(subtree -> NodesAtDepth(subtree, remaining, hash))
+                .sum()
+            ).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
         }
     }
 
-    // compare with http://www.aartbik.com/strategy.php
-    private static long NodesAtDepth(Position pos, int depth) {
+    // collects the positions `depth` plies below pos, following the perft rules
+    private static void Split(Position pos, int depth, List<Position> subtrees) {
+        if (depth == 0) {
+            subtrees.add(pos.copy());
+            return;
+        }
+
+        final long moves = pos.legalMovesBitboard();
+        if (moves == 0) {
+            if (Bitboard.legalMoves(pos.getOpponentBitboard(), pos.getOwnBitboard()) == 0) {
+                // finished game, a leaf whatever the remaining depth
+                subtrees.add(pos.copy());
+                return;
+            }
+            pos.makePass();
+            Split(pos, depth - 1, subtrees);
+            pos.makePass();
+            return;
+        }
+
+        for (long rest = moves; rest != 0; rest &= rest - 1) {
+            final int move = Long.numberOfTrailingZeros(rest);
+            final long flipped = pos.makeMove(move);
+            Split(pos, depth - 1, subtrees);
+            pos.unmakeMove(move, flipped);
+        }
+    }
+
+    public static long NodesAtDepth(Position pos, int depth) {
+        return NodesAtDepth(pos, depth, null);
+    }
+
+    /** @param hash can be null */
+    public static long NodesAtDepth(Position pos, int depth, PerftHash hash) {
         if (depth == 0) {
             return 1;
         }
 
+        final long moves = pos.legalMovesBitboard();
+
+        if (depth == 1) {
+            // a pass or the end of the game are one leaf each
+            return moves != 0 ? Bitboard.count(moves) : 1;
+        }
+
+        final boolean use_hash = hash != null && depth >= MIN_HASH_DEPTH;
+        if (use_hash) {
+            final long cached = hash.probe(pos.getHash(), depth);
+            if (cached != PerftHash.MISS)
+                return cached;
+        }
+
         long count = 0;
-        List<Field> moves = pos.legalMoves();
-        for (Field move : moves) {
-            count += NodesAtDepth(pos.applyMove(move), depth-1);
+        if (moves == 0) {
+            if (Bitboard.legalMoves(pos.getOpponentBitboard(), pos.getOwnBitboard()) == 0)
+                return 1;
+
+            pos.makePass();
+            count = NodesAtDepth(pos, depth-1, hash);
+            pos.makePass();
+        } else {
+            for (long rest = moves; rest != 0; rest &= rest - 1) {
+                final int move = Long.numberOfTrailingZeros(rest);
+                final long flipped = pos.makeMove(move);
+                count += NodesAtDepth(pos, depth-1, hash);
+                pos.unmakeMove(move, flipped);
+            }
+        }
+
+        if (use_hash) {
+            hash.store(pos.getHash(), depth, count);
         }
         return count;
     }
@@ -0,0 +1,51 @@
+package othello.game;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/*
+    Cache of subtree sizes for perft, keyed by Zobrist hash and depth.
+
+    Same lock-free layout as the TranspositionTable: an entry is the data
+    and key^data, so a torn entry reads as a miss. New results always
+    replace the old ones.
+
+    Data layout: depth in the low 8 bits, node count above it.
+*/
+
+public class PerftHash {
+    public final static long MISS = -1;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] table;
+    private final int mask;
+
+    /** @param size_bits log2 of the number of entries */
+    public PerftHash(int size_bits) {
+        assert size_bits >= 1 && size_bits <= 28;
+
+        this.table = new long[2 << size_bits];
+        this.mask = (1 << size_bits) - 1;
+    }
+
+    /** @return the node count, or MISS */
+    public long probe(final long key, final int depth) {
+        final int i = 2 * ((int) key & mask);
+        final long data = (long) SLOTS.getOpaque(table, i + 1);
+        final long check = (long) SLOTS.getOpaque(table, i);
+
+        if (data != 0 && (check ^ data) == key && (int) (data & 0xff) == depth)
+            return data >>> 8;
+        return MISS;
+    }
+
+    public void store(final long key, final int depth, final long count) {
+        assert depth > 0 && depth < 256;
+
+        final int i = 2 * ((int) key & mask);
+        final long data = count << 8 | depth;
+        SLOTS.setOpaque(table, i + 1, data);
+        SLOTS.setOpaque(table, i, key ^ data);
+    }
+}
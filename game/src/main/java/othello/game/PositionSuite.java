@@ -0,0 +1,47 @@
+package othello.game;
+
+import othello.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** a reproducible set of positions for benchmarks: random games from a fixed seed */
+public class PositionSuite {
+    public final static long SEED = 20210418;
+
+    public static List<Position> Generate(int count, int plies) {
+        return Generate(count, plies, SEED);
+    }
+
+    public static List<Position> Generate(int count, int plies, long seed) {
+        final Random random = new Random(seed);
+        final List<Position> positions = new ArrayList<Position>(count);
+
+        while (positions.size() < count) {
+            final Position pos = RandomGame(random, plies);
+            if (pos != null) {
+                positions.add(pos);
+            }
+        }
+        return positions;
+    }
+
+    /** @return null if the game ended before the given number of plies */
+    private static Position RandomGame(Random random, int plies) {
+        Position pos = Position.initialPosition();
+
+        for (int i = 0; i < plies; i++) {
+            final Status status = pos.generateStatus();
+            if (status.isGameFinished()) {
+                return null;
+            }
+            if (status.isPassForced()) {
+                pos.makePass();
+            }
+            pos.makeMove(status.moves.get(random.nextInt(status.moves.size())));
+        }
+
+        return pos.isTerminal() ? null : pos;
+    }
+}
@@ -0,0 +1,62 @@
+package othello.game;
+
+import othello.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+    Speedup of the Lazy SMP search: the time to reach a fixed depth on the
+    same positions with 1, 2, 4, ... threads, up to the number of cores.
+    Every position starts with an empty transposition table.
+
+    usage: smp [depth] [max_threads] [positions]
+*/
+
+public class SmpBenchmark {
+    public static void Run(String[] args) {
+        final int depth = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        final int max_threads = args.length > 1
+            ? Integer.parseInt(args[1])
+            : Runtime.getRuntime().availableProcessors();
+        final int count = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        final List<Position> positions = PositionSuite.Generate(count, 20);
+
+        System.out.println(String.format("depth %d, %d positions", depth, positions.size()));
+        System.out.println("threads      time [ms]          nodes     knps   speedup");
+
+        long single_thread_ms = 0;
+
+        for (int threads = 1; threads <= max_threads; threads = NextThreadCount(threads, max_threads)) {
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            final ParallelSearch search = new ParallelSearch(pool);
+
+            long time_ms = 0;
+            long nodes = 0;
+
+            for (Position pos : positions) {
+                final TranspositionTable tt = new TranspositionTable(22);
+                final long start = System.nanoTime();
+                final SearchResult result = search.run(pos, depth, 0, tt);
+                time_ms += (System.nanoTime() - start) / 1_000_000;
+                nodes += result.nodes;
+            }
+            pool.shutdown();
+
+            if (threads == 1) {
+                single_thread_ms = time_ms;
+            }
+
+            System.out.println(String.format("%7d %14d %14d %8d %9.2f",
+                threads, time_ms, nodes, nodes / Math.max(1, time_ms),
+                (double) single_thread_ms / Math.max(1, time_ms)));
+        }
+    }
+
+    private static int NextThreadCount(int threads, int max_threads) {
+        if (threads == max_threads)
+            return max_threads + 1;
+        return Math.min(2 * threads, max_threads);
+    }
+}
@@ -0,0 +1,306 @@
+package othello.game;
+
+import othello.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/*
+    A match between two players, played in parallel on all the cores.
+
+    Games are played in pairs: both players get each opening once with
+    each color, which cancels most of the advantage of a lucky opening.
+    Openings are positions after a few random moves from a fixed seed (see
+    PositionSuite), or read from a file with one opening per line as moves
+    in the usual notation ("f5d6c3d3c4"), lines starting with # ignored.
+
+    Every thread creates its own pair of players, since players keep state
+    (like the transposition table of AlphaBetaPlayer) that is not meant to
+    be shared. So the tables add up to two per thread: hash=<bits> sets
+    their size, 2^bits entries of 16 bytes, 1 MB each by default, which is
+    plenty for the short searches of a match. Nothing is printed per move;
+    progress goes to stdout every `report` games unless `quiet` is given.
+
+    With records=<file> every game is appended to the file as a GameRecord
+    (the opening and one byte per move), about 70 bytes per game.
+
+    With sprt=elo0,elo1 the match stops as soon as the SPRT accepts one of
+    the hypotheses (alpha = beta = 0.05), otherwise after `games` games.
+
+    Player specs:
+        random | square | minimax:<depth> | alphabeta:<depth>[:<ms>] | pattern:<depth>[:<ms>]
+
+    usage: tournament <player> <player> [games=N] [threads=N] [plies=N]
+                      [openings=<file>] [records=<file>] [sprt=<elo0>,<elo1>] [hash=<bits>]
+                      [report=N] [quiet]
+*/
+
+public class Tournament {
+    private static final double ALPHA = 0.05;
+    private static final double BETA = 0.05;
+    private static final int DEFAULT_HASH_BITS = 16;
+
+    // shared by all the pattern players, the weights are read-only
+    private static final PatternEvaluator PATTERN_EVALUATOR = new PatternEvaluator();
+
+    public static void Run(String[] args) {
+        if (args.length < 2) {
+            System.out.println("usage: tournament <player> <player> [games=N] [threads=N] [plies=N] "
+                + "[openings=<file>] [records=<file>] [sprt=<elo0>,<elo1>] [hash=<bits>] [report=N] [quiet]");
+            return;
+        }
+
+        final String spec_a = args[0];
+        final String spec_b = args[1];
+        int games = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int plies = 8;
+        String openings_file = null;
+        String records_file = null;
+        double[] sprt = null;
+        int hash_bits = DEFAULT_HASH_BITS;
+        int report = 100;
+        boolean quiet = false;
+
+        for (int i = 2; i < args.length; i++) {
+            final String[] option = args[i].split("=", 2);
+            switch (option[0]) {
+                case "games": games = Integer.parseInt(option[1]); break;
+                case "threads": threads = Integer.parseInt(option[1]); break;
+                case "plies": plies = Integer.parseInt(option[1]); break;
+                case "openings": openings_file = option[1]; break;
+                case "records": records_file = option[1]; break;
+                case "hash": hash_bits = Integer.parseInt(option[1]); break;
+                case "report": report = Integer.parseInt(option[1]); break;
+                case "quiet": quiet = true; break;
+                case "sprt":
+                    final String[] bounds = option[1].split(",");
+                    sprt = new double[] { Double.parseDouble(bounds[0]), Double.parseDouble(bounds[1]) };
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        // both players must exist before we spend minutes playing
+        if (hash_bits < 1 || hash_bits > 28) {
+            throw new IllegalArgumentException("hash must be between 1 and 28 bits");
+        }
+        CreatePlayer(spec_a, "a", 1); // with a tiny table
+        CreatePlayer(spec_b, "b", 1);
+
+        final List<Position> openings = openings_file != null
+            ? ReadOpenings(openings_file)
+            : PositionSuite.Generate((games + 1) / 2, plies);
+
+        final MatchStats stats;
+        try (RecordWriter records = records_file != null ? new RecordWriter(Paths.get(records_file)) : null) {
+            stats = Play(spec_a, spec_b, openings, games, threads, hash_bits, sprt, quiet ? 0 : report, records);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.out.println(String.format("%s vs %s", spec_a, spec_b));
+        System.out.println(stats);
+        if (sprt != null) {
+            System.out.println(SprtSummary(stats, sprt));
+        }
+    }
+
+    /** plays up to `games` games, cycling through the openings in pairs */
+    public static MatchStats Play(String spec_a, String spec_b, List<Position> openings,
+                                  int games, int threads, int hash_bits, double[] sprt, int report,
+                                  RecordWriter records) {
+        assert !openings.isEmpty();
+
+        final ThreadLocal<Player[]> players = ThreadLocal.withInitial(() ->
+            new Player[] { CreatePlayer(spec_a, "a", hash_bits), CreatePlayer(spec_b, "b", hash_bits) });
+
+        final AtomicInteger wins = new AtomicInteger();
+        final AtomicInteger draws = new AtomicInteger();
+        final AtomicInteger losses = new AtomicInteger();
+        final AtomicInteger finished = new AtomicInteger();
+        final AtomicBoolean stop = new AtomicBoolean(false);
+
+        final long start = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int game = 0; game < games; game++) {
+            final Position opening = openings.get((game / 2) % openings.size());
+            final boolean a_plays_x = game % 2 == 0;
+
+            executor.execute(() -> {
+                if (stop.get()) {
+                    return;
+                }
+
+                final Player[] pair = players.get();
+                final GameRecord record = new GameRecord(opening);
+                final int difference = PlayOut(opening.copy(),
+                    a_plays_x ? pair[0] : pair[1],
+                    a_plays_x ? pair[1] : pair[0],
+                    record);
+                if (records != null) {
+                    records.write(record);
+                }
+                final int for_a = a_plays_x ? difference : -difference;
+
+                if (for_a > 0)
+                    wins.incrementAndGet();
+                else if (for_a < 0)
+                    losses.incrementAndGet();
+                else
+                    draws.incrementAndGet();
+
+                final int done = finished.incrementAndGet();
+                final MatchStats stats = new MatchStats(wins.get(), draws.get(), losses.get());
+
+                if (report > 0 && done % report == 0) {
+                    final double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.println(String.format("%6d games  %.1f games/s  %s",
+                        done, done / seconds, stats));
+                }
+
+                if (sprt != null) {
+                    final double llr = stats.llr(sprt[0], sprt[1]);
+                    if (llr <= MatchStats.LowerBound(ALPHA, BETA) || llr >= MatchStats.UpperBound(ALPHA, BETA))
+                        stop.set(true);
+                }
+            });
+        }
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        final MatchStats stats = new MatchStats(wins.get(), draws.get(), losses.get());
+        System.out.println(String.format("%d games in %.1f s, %.1f games/s on %d threads",
+            stats.games(), seconds, stats.games() / seconds, threads));
+        return stats;
+    }
+
+    /** @return disc difference at the end of the game, from the perspective of X */
+    static int PlayOut(Position pos, Player x, Player o, GameRecord record) {
+        while (true) {
+            long moves = pos.legalMovesBitboard();
+
+            if (moves == 0) {
+                if (!Bitboard.hasLegalMove(pos.getOpponentBitboard(), pos.getOwnBitboard())) {
+                    return Bitboard.count(pos.getBitboard(Color.X)) - Bitboard.count(pos.getBitboard(Color.O));
+                }
+                pos.makePass();
+                record.addPass();
+                moves = pos.legalMovesBitboard();
+            }
+
+            final Player player = pos.getPlayerToMove() == Color.X ? x : o;
+            final int move = player.bestMove(pos, moves);
+            pos.makeMove(move);
+            record.add(move);
+        }
+    }
+
+    /** @param hash_bits log2 of the entries of the transposition table, for the players that have one */
+    static Player CreatePlayer(String spec, String id, int hash_bits) {
+        final String[] parts = spec.split(":");
+        final int depth = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+        final long time_ms = parts.length > 2 ? Long.parseLong(parts[2]) : 0;
+
+        switch (parts[0]) {
+            case "random":
+                return new RandomPlayer(id);
+            case "square":
+                return new SquareValuationPlayer(id);
+            case "minimax":
+                return new MinimaxPlayer(id, depth);
+            case "alphabeta":
+                return new AlphaBetaPlayer(id, depth, time_ms, new TranspositionTable(hash_bits));
+            case "pattern":
+                final AlphaBetaPlayer player = new AlphaBetaPlayer(id, depth, time_ms, new TranspositionTable(hash_bits));
+                player.evaluator = PATTERN_EVALUATOR;
+                return player;
+            default:
+                throw new IllegalArgumentException("unknown player " + spec);
+        }
+    }
+
+    static List<Position> ReadOpenings(String file) {
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return lines.stream()
+            .map(String::trim)
+            .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+            .map(line -> GameRecord.parse(line).replay())
+            .collect(Collectors.toList());
+    }
+
+    private static String SprtSummary(MatchStats stats, double[] sprt) {
+        final double llr = stats.llr(sprt[0], sprt[1]);
+        final double lower = MatchStats.LowerBound(ALPHA, BETA);
+        final double upper = MatchStats.UpperBound(ALPHA, BETA);
+        final String verdict = llr >= upper ? "H1 accepted"
+            : llr <= lower ? "H0 accepted"
+            : "inconclusive";
+
+        return String.format("SPRT elo0=%.1f elo1=%.1f: LLR %.2f [%.2f, %.2f] %s",
+            sprt[0], sprt[1], llr, lower, upper, verdict);
+    }
+
+    /** appends finished games to a file in the GameRecord format, from any thread */
+    public static class RecordWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+        public RecordWriter(Path path) throws IOException {
+            this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        public synchronized void write(GameRecord record) {
+            if (buffer.remaining() < record.encodedSize()) {
+                flush();
+            }
+            record.write(buffer);
+        }
+
+        private void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package othello.game
+
+import spock.lang.*
+
+class MatchStatsSpec extends Specification {
+
+    static final double EPS = 1e-6
+
+    //--------------------------------------------------------
+    // Elo
+    //--------------------------------------------------------
+
+    def "elo and score convert into each other"() {
+        expect:
+            Math.abs(MatchStats.EloFromScore(score) - elo) < EPS
+            Math.abs(MatchStats.ScoreFromElo(elo) - score) < EPS
+        where:
+            score      | elo
+            0.5        | 0
+            0.75       | 400 * Math.log10(3)
+            0.25       | -400 * Math.log10(3)
+            10.0 / 11  | 400
+            1.0 / 11   | -400
+    }
+
+    def "draws count half"() {
+        expect:
+            new MatchStats(wins, draws, losses).score() == score
+        where:
+            wins | draws | losses | score
+            3    | 0     | 1      | 0.75
+            2    | 2     | 0      | 0.75
+            0    | 4     | 0      | 0.5
+            0    | 0     | 0      | 0.5
+    }
+
+    def "a match won or lost every time has an infinite elo difference"() {
+        expect:
+            new MatchStats(10, 0, 0).elo() == Double.POSITIVE_INFINITY
+            new MatchStats(0, 0, 10).elo() == Double.NEGATIVE_INFINITY
+    }
+
+    def "the elo error is the half width of the 95% interval"() {
+        given:
+            // score 0.5, variance of a game (30 * 0.25 + 30 * 0.25) / 100 = 0.15
+            def deviation = 1.959964 * Math.sqrt(0.15 / 100)
+            def expected = 400 * Math.log10((0.5 + deviation) / (0.5 - deviation))
+        expect:
+            Math.abs(new MatchStats(30, 40, 30).eloError() - expected) < EPS
+            Math.abs(new MatchStats(30, 40, 30).eloError() - 53.15798) < 1e-4
+    }
+
+    def "the elo error shrinks with the number of games"() {
+        expect:
+            new MatchStats(300, 400, 300).eloError() < new MatchStats(30, 40, 30).eloError()
+            new MatchStats(1, 0, 0).eloError() == Double.POSITIVE_INFINITY
+            new MatchStats(0, 10, 0).eloError() == 0
+    }
+
+    //--------------------------------------------------------
+    // LOS
+    //--------------------------------------------------------
+
+    def "erf matches known values"() {
+        expect:
+            Math.abs(MatchStats.Erf(x) - erf) < 2e-7
+        where:
+            x    | erf
+            0    | 0
+            0.5  | 0.5204998778
+            1    | 0.8427007929
+            2    | 0.9953222650
+            -1   | -0.8427007929
+    }
+
+    def "los depends on the wins and losses only"() {
+        expect:
+            Math.abs(new MatchStats(wins, draws, losses).los() - los) < 1e-6
+        where:
+            wins | draws | losses | los
+            60   | 0     | 40     | 0.9772499
+            60   | 500   | 40     | 0.9772499
+            40   | 0     | 60     | 0.0227501
+            50   | 10    | 50     | 0.5
+            0    | 10    | 0      | 0.5
+    }
+
+    //--------------------------------------------------------
+    // SPRT
+    //--------------------------------------------------------
+
+    def "sprt bounds for alpha = beta = 0.05"() {
+        expect:
+            Math.abs(MatchStats.LowerBound(0.05, 0.05) + 2.944439) < EPS
+            Math.abs(MatchStats.UpperBound(0.05, 0.05) - 2.944439) < EPS
+    }
+
+    def "the llr is zero halfway between the hypotheses"() {
+        given:
+            // score 0.5 is halfway between elo -10 and +10
+            def stats = new MatchStats(300, 400, 300)
+        expect:
+            Math.abs(stats.llr(-10, 10)) < EPS
+    }
+
+    def "the llr matches the normal approximation"() {
+        expect:
+            Math.abs(new MatchStats(wins, draws, losses).llr(0, 10) - llr) < 1e-4
+        where:
+            wins | draws | losses | llr
+            400  | 300   | 300    | 3.5702242
+            300  | 300   | 400    | -4.7701724
+    }
+
+    def "the llr leaves the bounds for a clearly stronger or weaker player"() {
+        expect:
+            new MatchStats(400, 300, 300).llr(0, 10) >= MatchStats.UpperBound(0.05, 0.05)
+            new MatchStats(300, 300, 400).llr(0, 10) <= MatchStats.LowerBound(0.05, 0.05)
+            new MatchStats(52, 0, 48).llr(0, 10) > MatchStats.LowerBound(0.05, 0.05)
+            new MatchStats(52, 0, 48).llr(0, 10) < MatchStats.UpperBound(0.05, 0.05)
+    }
+
+    def "no llr without both wins and losses"() {
+        expect:
+            new MatchStats(10, 5, 0).llr(0, 10) == 0
+            new MatchStats(0, 5, 10).llr(0, 10) == 0
+    }
+}
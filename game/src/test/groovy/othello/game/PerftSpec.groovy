@@ -0,0 +1,84 @@
+package othello.game
+
+import othello.Color
+import othello.Position
+
+import java.util.concurrent.ForkJoinPool
+
+import spock.lang.*
+
+class PerftSpec extends Specification {
+
+    // from http://www.aartbik.com/strategy.php, the conventions of Perft
+    static final long[] NODES = [1, 4, 12, 56, 244, 1396, 8200, 55092, 390216, 3005288]
+
+    // X on B1 can't move, O on A1 can take it with C1 and the game is over
+    static final String X_MUST_PASS = "OX" + "." * (Position.FIELDS - 2)
+
+    @Shared ForkJoinPool pool = new ForkJoinPool(4)
+
+    def cleanupSpec() {
+        pool.shutdown()
+    }
+
+    def "serial perft counts the known nodes from the initial position"() {
+        expect:
+            Perft.NodesAtDepth(Position.initialPosition(), depth) == NODES[depth]
+        where:
+            depth << (1..9)
+    }
+
+    def "the hash doesn't change the counts"() {
+        given:
+            def hash = new PerftHash(16)
+        expect:
+            Perft.NodesAtDepth(Position.initialPosition(), depth, hash) == NODES[depth]
+            // again, now from the hash
+            Perft.NodesAtDepth(Position.initialPosition(), depth, hash) == NODES[depth]
+        where:
+            depth << (1..9)
+    }
+
+    def "parallel perft agrees with serial perft"() {
+        expect:
+            Perft.ParallelNodesAtDepth(Position.initialPosition(), depth, pool, null) == NODES[depth]
+            Perft.ParallelNodesAtDepth(Position.initialPosition(), depth, pool, new PerftHash(16)) == NODES[depth]
+        where:
+            depth << (1..9)
+    }
+
+    def "perft leaves the position as it was"() {
+        given:
+            def pos = Position.initialPosition()
+        when:
+            Perft.NodesAtDepth(pos, 6, new PerftHash(12))
+        then:
+            pos.toAscii() == Position.initialPosition().toAscii()
+            pos.playerToMove == Color.X
+    }
+
+    def "a forced pass counts as a move and a finished game as one leaf"() {
+        given:
+            def pos = Position.fromString(X_MUST_PASS, Color.X)
+        expect:
+            // the pass, O's capture, then the game is over
+            Perft.NodesAtDepth(pos.copy(), depth) == nodes
+            Perft.ParallelNodesAtDepth(pos, depth, pool, new PerftHash(12)) == nodes
+        where:
+            depth | nodes
+            1     | 1
+            2     | 1
+            3     | 1
+            8     | 1
+    }
+
+    def "a finished game is one leaf at any depth"() {
+        given:
+            def pos = Position.fromString("X" * Position.FIELDS, Color.O)
+        expect:
+            Perft.NodesAtDepth(pos.copy(), depth) == 1
+            Perft.ParallelNodesAtDepth(pos, depth, pool, null) == 1
+        where:
+            depth << [1, 2, 5, 9]
+    }
+}
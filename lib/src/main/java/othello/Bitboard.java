@@ -0,0 +1,206 @@
+package othello;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    A bitboard is a long where bit i corresponds to the Field with ordinal i
+    (see the table in Field.java), so A1 is the lowest bit and H8 the highest.
+
+    Moving one column to the right is a shift by 1, one row down is a shift
+    by 8. Shifts that change the column need a mask, otherwise a disc on the
+    H file wraps around to the A file of the next row (and vice versa).
+*/
+
+public final class Bitboard {
+    public static final long EMPTY = 0L;
+    public static final long FULL = -1L;
+
+    static final long NOT_A_FILE = 0xfefefefefefefefeL;
+    static final long NOT_H_FILE = 0x7f7f7f7f7f7f7f7fL;
+    static final long INNER_FILES = NOT_A_FILE & NOT_H_FILE;
+
+    // shift amounts for left shifts (towards H8); right shifts use the same
+    // amounts with the opposite direction
+    //   1 -> east, 9 -> south-east, 8 -> south, 7 -> south-west
+    private static final int[] SHIFTS = new int[] { 1, 9, 8, 7 };
+    private static final long[] LEFT_MASKS = new long[] { NOT_A_FILE, NOT_A_FILE, FULL, NOT_H_FILE };
+    private static final long[] RIGHT_MASKS = new long[] { NOT_H_FILE, NOT_H_FILE, FULL, NOT_A_FILE };
+
+    private Bitboard() {
+    }
+
+    public static long bit(int index) {
+        return 1L << index;
+    }
+
+    public static long bit(Field field) {
+        return 1L << field.toIndex();
+    }
+
+    public static int count(long mask) {
+        return Long.bitCount(mask);
+    }
+
+    public static boolean contains(long mask, int index) {
+        return (mask & (1L << index)) != 0;
+    }
+
+    /** @return bitboard of the empty squares where the owner of `own` can play */
+    public static long legalMoves(final long own, final long opp) {
+        final long empty = ~(own | opp);
+        long moves = 0;
+
+        for (int dir = 0; dir < SHIFTS.length; dir++) {
+            final int shift = SHIFTS[dir];
+            // a line of opponent discs can't cross the A or H file, unless we
+            // move vertically
+            final long inner = shift == 8 ? opp : opp & INNER_FILES;
+
+            long line = inner & (own << shift);
+            for (int i = 0; i < 5; i++)
+                line |= inner & (line << shift);
+            moves |= line << shift;
+
+            line = inner & (own >>> shift);
+            for (int i = 0; i < 5; i++)
+                line |= inner & (line >>> shift);
+            moves |= line >>> shift;
+        }
+
+        return moves & empty;
+    }
+
+    /** legalMoves(own, opp) != 0, stopping at the first direction with a move */
+    public static boolean hasLegalMove(final long own, final long opp) {
+        final long empty = ~(own | opp);
+
+        for (int dir = 0; dir < SHIFTS.length; dir++) {
+            final int shift = SHIFTS[dir];
+            final long inner = shift == 8 ? opp : opp & INNER_FILES;
+
+            long line = inner & (own << shift);
+            for (int i = 0; i < 5; i++)
+                line |= inner & (line << shift);
+            if (((line << shift) & empty) != 0)
+                return true;
+
+            line = inner & (own >>> shift);
+            for (int i = 0; i < 5; i++)
+                line |= inner & (line >>> shift);
+            if (((line >>> shift) & empty) != 0)
+                return true;
+        }
+
+        return false;
+    }
+
+    /** @return bitboard of the opponent discs flipped by playing at `index` */
+    public static long flips(final int index, final long own, final long opp) {
+        return FlipTables.flipsFor(index, own, opp);
+    }
+
+    /** flips by walking the 8 directions one square at a time, kept for the specs and benchmarks */
+    public static long flipsByShifts(final int index, final long own, final long opp) {
+        final long move = 1L << index;
+        long flipped = 0;
+
+        for (int dir = 0; dir < SHIFTS.length; dir++) {
+            final int shift = SHIFTS[dir];
+
+            long line = 0;
+            long x = (move << shift) & LEFT_MASKS[dir];
+            while ((x & opp) != 0) {
+                line |= x;
+                x = (x << shift) & LEFT_MASKS[dir];
+            }
+            // we need to have our disc at the other side of the line with no gaps
+            if ((x & own) != 0)
+                flipped |= line;
+
+            line = 0;
+            x = (move >>> shift) & RIGHT_MASKS[dir];
+            while ((x & opp) != 0) {
+                line |= x;
+                x = (x >>> shift) & RIGHT_MASKS[dir];
+            }
+            if ((x & own) != 0)
+                flipped |= line;
+        }
+
+        return flipped;
+    }
+
+    /**
+     * flips with Kogge-Stone fills: the run of opponent discs in each
+     * direction is found in 3 doubling steps instead of a loop, kept for the
+     * specs and benchmarks
+     */
+    public static long flipsKoggeStone(final int index, final long own, final long opp) {
+        final long move = 1L << index;
+        long flipped = 0;
+
+        for (int dir = 0; dir < SHIFTS.length; dir++) {
+            final int shift = SHIFTS[dir];
+
+            // move and the opponent discs in a row after it
+            long propagate = opp & LEFT_MASKS[dir];
+            long fill = move | (propagate & (move << shift));
+            propagate &= propagate << shift;
+            fill |= propagate & (fill << (2 * shift));
+            propagate &= propagate << (2 * shift);
+            fill |= propagate & (fill << (4 * shift));
+            // the only square after the fill that isn't in it ends the run
+            if (((fill << shift) & LEFT_MASKS[dir] & own) != 0)
+                flipped |= fill & ~move;
+
+            propagate = opp & RIGHT_MASKS[dir];
+            fill = move | (propagate & (move >>> shift));
+            propagate &= propagate >>> shift;
+            fill |= propagate & (fill >>> (2 * shift));
+            propagate &= propagate >>> (2 * shift);
+            fill |= propagate & (fill >>> (4 * shift));
+            if (((fill >>> shift) & RIGHT_MASKS[dir] & own) != 0)
+                flipped |= fill & ~move;
+        }
+
+        return flipped;
+    }
+
+    /** @return squares next to (but not in) the mask, in any of the 8 directions */
+    public static long neighbours(final long mask) {
+        long result = 0;
+        for (int dir = 0; dir < SHIFTS.length; dir++) {
+            result |= (mask << SHIFTS[dir]) & LEFT_MASKS[dir];
+            result |= (mask >>> SHIFTS[dir]) & RIGHT_MASKS[dir];
+        }
+        return result & ~mask;
+    }
+
+    /** @return index of the n-th square of the mask (counting from 0), in index order */
+    public static int nth(long mask, int n) {
+        assert n >= 0 && n < count(mask);
+
+        for (; n > 0; n--)
+            mask &= mask - 1;
+        return Long.numberOfTrailingZeros(mask);
+    }
+
+    public static List<Field> toFields(long mask) {
+        List<Field> fields = new ArrayList<Field>(Long.bitCount(mask));
+
+        while (mask != 0) {
+            fields.add(Field.fromIndex(Long.numberOfTrailingZeros(mask)));
+            mask &= mask - 1;
+        }
+
+        return fields;
+    }
+
+    public static long fromFields(List<Field> fields) {
+        long mask = 0;
+        for (Field field : fields)
+            mask |= bit(field);
+        return mask;
+    }
+}
@@ -32,6 +32,9 @@ public enum Field {
     A7, B7, C7, D7, E7, F7, G7, H7,
     A8, B8, C8, D8, E8, F8, G8, H8;
 
+    // values() returns a new array on every call
+    private static final Field[] VALUES = values();
+
     public int toIndex() {
         return this.ordinal();
     }
@@ -40,8 +43,12 @@ public enum Field {
         return Arrays.asList(Field.values());
     }
 
+    public static Field fromIndex(int index) {
+        return VALUES[index];
+    }
+
     public static Field fromRowCol(int row, int col) {
-        return Field.allFields().get(8*row + col);
+        return VALUES[8*row + col];
     }
 
     public int toRow() {
@@ -0,0 +1,126 @@
+package othello;
+
+/*
+    Flips by table lookup, one line at a time instead of one square at a
+    time.
+
+    Every square is on 4 lines: its row, its column and its two diagonals.
+    For each line we:
+
+    1. gather the discs on the line into an 8-bit pattern, bit i being the
+       i-th square of the line (the file for rows and diagonals, the rank
+       for columns); one shift, or one multiplication for the others,
+    2. look up the outflanking squares: OUTFLANK[position][opp] has the
+       squares just past the runs of opponent discs on both sides of the
+       position, ANDed with our pattern it keeps the runs we close,
+    3. look up the flipped squares between the position and those
+       outflanking squares in FLIPPED[position][outflank],
+    4. spread the 8-bit result back onto the board.
+
+    The end squares of a line never flip, so OUTFLANK only needs the 6
+    inner bits of the opponent pattern. Squares of a diagonal outside the
+    board are empty for both players, which stops a run just like an empty
+    square does. The tables take about 6 KB and stay in the L1 cache.
+*/
+
+public final class FlipTables {
+    private static final long A_FILE = 0x0101010101010101L;
+    // gathers the A file into the top byte, rank i goes to bit 56 + i
+    private static final long A_FILE_GATHER = 0x0102040810204080L;
+
+    private static final byte[] OUTFLANK = new byte[8 * 64];
+    private static final byte[] FLIPPED = new byte[8 * 256];
+    // bit i of the index on rank i of the A file
+    private static final long[] A_FILE_SPREAD = new long[256];
+
+    // the two diagonals through every square
+    private static final long[] DIAGONAL = new long[Position.FIELDS];
+    private static final long[] ANTI_DIAGONAL = new long[Position.FIELDS];
+
+    static {
+        for (int position = 0; position < 8; position++) {
+            for (int inner = 0; inner < 64; inner++) {
+                final int opp = inner << 1;
+                int outflank = 0;
+
+                int i = position + 1;
+                while (i < 8 && (opp & (1 << i)) != 0)
+                    i++;
+                if (i > position + 1 && i < 8)
+                    outflank |= 1 << i;
+
+                i = position - 1;
+                while (i >= 0 && (opp & (1 << i)) != 0)
+                    i--;
+                if (i < position - 1 && i >= 0)
+                    outflank |= 1 << i;
+
+                OUTFLANK[position * 64 + inner] = (byte) outflank;
+            }
+
+            for (int outflank = 0; outflank < 256; outflank++) {
+                int flipped = 0;
+                for (int end = 0; end < 8; end++) {
+                    if ((outflank & (1 << end)) == 0)
+                        continue;
+                    for (int i = Math.min(end, position) + 1; i < Math.max(end, position); i++)
+                        flipped |= 1 << i;
+                }
+                FLIPPED[position * 256 + outflank] = (byte) flipped;
+            }
+        }
+
+        for (int pattern = 0; pattern < 256; pattern++) {
+            long spread = 0;
+            for (int i = 0; i < 8; i++) {
+                if ((pattern & (1 << i)) != 0)
+                    spread |= 1L << (8 * i);
+            }
+            A_FILE_SPREAD[pattern] = spread;
+        }
+
+        for (int square = 0; square < Position.FIELDS; square++) {
+            final int row = square / 8;
+            final int col = square % 8;
+            for (int other = 0; other < Position.FIELDS; other++) {
+                if (other / 8 - other % 8 == row - col)
+                    DIAGONAL[square] |= 1L << other;
+                if (other / 8 + other % 8 == row + col)
+                    ANTI_DIAGONAL[square] |= 1L << other;
+            }
+        }
+    }
+
+    private FlipTables() {
+    }
+
+    /** @return bitboard of the opponent discs flipped by playing at `square` */
+    public static long flipsFor(final int square, final long own, final long opp) {
+        final int row = square >>> 3;
+        final int col = square & 7;
+
+        // row, the position on the line is the file
+        int outflank = OUTFLANK[col * 64 + ((int) (opp >>> (8 * row + 1)) & 0x3f)] & (int) (own >>> (8 * row)) & 0xff;
+        long flipped = (long) (FLIPPED[col * 256 + outflank] & 0xff) << (8 * row);
+
+        // column, the position is the rank
+        final int own_column = (int) ((((own >>> col) & A_FILE) * A_FILE_GATHER) >>> 56);
+        final int opp_column = (int) ((((opp >>> col) & A_FILE) * A_FILE_GATHER) >>> 56);
+        outflank = OUTFLANK[row * 64 + ((opp_column >>> 1) & 0x3f)] & own_column;
+        flipped |= A_FILE_SPREAD[FLIPPED[row * 256 + outflank] & 0xff] << col;
+
+        // diagonals, the position is the file again
+        flipped |= diagonalFlips(col, DIAGONAL[square], own, opp);
+        flipped |= diagonalFlips(col, ANTI_DIAGONAL[square], own, opp);
+
+        return flipped;
+    }
+
+    private static long diagonalFlips(final int col, final long mask, final long own, final long opp) {
+        // one square per file, so adding up the rows doesn't carry
+        final int own_line = (int) (((own & mask) * A_FILE) >>> 56);
+        final int opp_line = (int) (((opp & mask) * A_FILE) >>> 56);
+        final int outflank = OUTFLANK[col * 64 + ((opp_line >>> 1) & 0x3f)] & own_line;
+        return ((FLIPPED[col * 256 + outflank] & 0xffL) * A_FILE) & mask;
+    }
+}
@@ -0,0 +1,173 @@
+package othello;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+    A game as the starting position and the moves played from it, one byte
+    per move: the square index, or PASS.
+
+    Binary form:
+
+        byte[PositionCodec.BYTES]   starting position
+        byte                        number of moves (there are at most 60
+                                    moves and a few passes)
+        byte[]                      the moves
+
+    so a whole game takes less space than a single ASCII board.
+*/
+
+public class GameRecord {
+    public static final int PASS = Position.FIELDS;
+
+    private static final int MAX_MOVES = 255;
+
+    private final Position start;
+    private byte[] moves = new byte[64];
+    private int size = 0;
+
+    public GameRecord(Position start) {
+        this.start = start.copy();
+    }
+
+    public GameRecord() {
+        this(Position.initialPosition());
+    }
+
+    /**
+     * @param moves like "f5d6c3" from the initial position, as written by
+     *     toString; passes ("--") may be left out
+     */
+    public static GameRecord parse(String moves) {
+        final GameRecord record = new GameRecord();
+        final Position pos = Position.initialPosition();
+
+        for (int i = 0; i + 1 < moves.length(); i += 2) {
+            final String token = moves.substring(i, i + 2);
+            if (token.equals("--"))
+                continue;
+
+            final Field move = Field.valueOf(token.toUpperCase());
+            if (pos.legalMovesBitboard() == 0) {
+                pos.makePass();
+                record.addPass();
+            }
+            if (!Bitboard.contains(pos.legalMovesBitboard(), move.toIndex()))
+                throw new IllegalArgumentException("illegal move " + move + " in " + moves);
+
+            pos.makeMove(move);
+            record.add(move);
+        }
+        return record;
+    }
+
+    public void add(Field move) {
+        append(move.toIndex());
+    }
+
+    /** @param move index of the square, see Field.toIndex */
+    public void add(int move) {
+        assert move >= 0 && move < Position.FIELDS;
+        append(move);
+    }
+
+    public void addPass() {
+        append(PASS);
+    }
+
+    private void append(int move) {
+        if (size == MAX_MOVES)
+            throw new IllegalStateException("a game record holds at most " + MAX_MOVES + " moves");
+        if (size == moves.length)
+            moves = Arrays.copyOf(moves, 2 * size);
+        moves[size++] = (byte) move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** @return the square index of the i-th move, or PASS */
+    public int moveAt(int i) {
+        assert i >= 0 && i < size;
+        return moves[i];
+    }
+
+    public Position getStart() {
+        return start.copy();
+    }
+
+    /**
+     * @return the position after the first `count` moves
+     * @throws IllegalArgumentException if one of the moves is not legal
+     */
+    public Position replay(int count) {
+        assert count >= 0 && count <= size;
+
+        final Position pos = start.copy();
+
+        for (int i = 0; i < count; i++) {
+            final long legal = pos.legalMovesBitboard();
+            if (moves[i] == PASS) {
+                if (legal != 0)
+                    throw new IllegalArgumentException("pass with legal moves at move " + i);
+                pos.makePass();
+            } else {
+                if (!Bitboard.contains(legal, moves[i]))
+                    throw new IllegalArgumentException("illegal move at move " + i);
+                pos.makeMove(moves[i]);
+            }
+        }
+        return pos;
+    }
+
+    public Position replay() {
+        return replay(size);
+    }
+
+    public int encodedSize() {
+        return PositionCodec.BYTES + 1 + size;
+    }
+
+    /** writes at the position of the buffer and advances it */
+    public void write(ByteBuffer buffer) {
+        PositionCodec.write(start, buffer);
+        buffer.put((byte) size);
+        buffer.put(moves, 0, size);
+    }
+
+    /** reads from the position of the buffer and advances it */
+    public static GameRecord read(ByteBuffer buffer) {
+        final GameRecord record = new GameRecord(PositionCodec.read(buffer));
+        final int size = buffer.get() & 0xff;
+
+        record.moves = new byte[Math.max(size, 1)];
+        buffer.get(record.moves, 0, size);
+        record.size = size;
+
+        for (int i = 0; i < size; i++) {
+            if (record.moves[i] < 0 || record.moves[i] > PASS)
+                throw new IllegalArgumentException("bad move " + record.moves[i]);
+        }
+        return record;
+    }
+
+    public byte[] toBytes() {
+        final ByteBuffer buffer = ByteBuffer.allocate(encodedSize());
+        write(buffer);
+        return buffer.array();
+    }
+
+    public static GameRecord fromBytes(byte[] bytes) {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder(2 * size);
+        for (int i = 0; i < size; i++) {
+            result.append(moves[i] == PASS ? "--" : Field.fromIndex(moves[i]).toString().toLowerCase());
+        }
+        return result.toString();
+    }
+}
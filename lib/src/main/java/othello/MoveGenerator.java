@@ -0,0 +1,115 @@
+package othello;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Square-by-square move generator, the original implementation of the rules.
+// Position uses the bitboard routines from Bitboard.java, this one is kept as
+// a reference for the specs.
+class MoveGenerator {
+    public static final int ROWS = Position.ROWS + 2;
+    public static final int COLS = Position.COLS + 2;
+    public final static int FIELDS = ROWS * COLS;
+
+    // board with a sentinel frame around (consisting of nulls)
+    Square[][] board = new Square[ROWS][];
+    Color to_move;
+
+    public MoveGenerator(Color to_move, Square[] board) {
+        this.to_move = to_move;
+
+        for (int row = 0; row < ROWS; row++)
+            this.board[row] = new Square[COLS];
+
+        for (int row = 0; row < Position.ROWS; row++)
+            for (int col = 0; col < Position.COLS; col++)
+                this.board[row+1][col+1] = board[row*8 +col];
+    }
+
+    public List<Integer> makeMove(Field move) {
+        List<Integer> indexes_to_flip = new ArrayList<Integer>();
+
+        int row = 1 + move.toRow();
+        int col = 1 + move.toCol();
+
+        for (int delta_row: List.of(-1, 0, 1))
+            for (int delta_col: List.of(-1, 0, 1))
+                if (delta_row != 0 || delta_col != 0) {
+                    List<Integer> indexes = tryCaptureOnLine(row, col, delta_row, delta_col);
+                    if (indexes != null)
+                        indexes_to_flip.addAll(indexes);
+                }
+
+        return indexes_to_flip;
+    }
+
+    private List<Integer> tryCaptureOnLine(int row, int col, int delta_row, int delta_col) {
+        List<Integer> indexes_to_capture = new ArrayList<Integer>();
+        int x = row + delta_row;
+        int y = col + delta_col;
+
+        final Square opp_square = to_move.opposite().toSquare();
+        final Square own_square = to_move.toSquare();
+
+        while (board[x][y] == opp_square) {
+            indexes_to_capture.add((x-1)*8 + (y-1));
+
+            x += delta_row;
+            y += delta_col;
+        }
+
+        // we need to have our stone at the other side of the line with no gaps
+        if (board[x][y] == own_square)
+            return indexes_to_capture;
+        else
+            return null;
+    }
+
+    public List<Field> legalMoves() {
+        List<Field> legal_moves = new ArrayList<Field>();
+
+        for (int row = 0; row < MoveGenerator.ROWS; row++)
+            for (int col = 0; col < MoveGenerator.COLS; col++)
+                if (board[row][col] == Square.EMPTY)
+                    if (isCapturePossible(row, col))
+                        legal_moves.add(Field.fromRowCol(row-1, col-1));
+
+        return legal_moves;
+    }
+
+    private boolean isCapturePossible(int row, int col) {
+        for (int delta_row: List.of(-1, 0, 1))
+            for (int delta_col: List.of(-1, 0, 1))
+                if (delta_row != 0 || delta_col != 0)
+                    if (isCapturePossibleOnLine(row, col, delta_row, delta_col))
+                        return true;
+        return false;
+    }
+
+    // Checks if we can flip any stones one the given line
+    private boolean isCapturePossibleOnLine(int row, int col, int delta_row, int delta_col) {
+        assert board[row][col] == Square.EMPTY;
+
+        List<Color> colors_on_diagonal = traverseLine(row, col, delta_row, delta_col);
+        if (colors_on_diagonal.isEmpty())
+            return false;
+
+        Color opponent = to_move.opposite();
+        return colors_on_diagonal.get(0) == opponent && colors_on_diagonal.contains(to_move);
+    }
+
+    private List<Color> traverseLine(int row, int col, int delta_row, int delta_col) {
+        List<Color> colors_on_diagonal = new ArrayList<Color>();
+        int x = row + delta_row;
+        int y = col + delta_col;
+
+        while (board[x][y] != null && board[x][y] != Square.EMPTY) {
+            colors_on_diagonal.add(board[x][y].toColor());
+
+            x += delta_row;
+            y += delta_col;
+        }
+
+        return colors_on_diagonal;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package othello;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Geometry of the evaluation patterns.
+
+    A pattern is a list of squares, and the configuration of the discs on
+    them is a base-3 number: digit k is 0 for an empty square, 1 for X and
+    2 for O on the k-th square, the first square is the most significant.
+
+      EDGE      A1 .. H1, and the other 3 edges
+      LINE2     A2 .. H2, and the other 3 lines next to an edge
+      DIAGONAL  A1 .. H8 and A8 .. H1
+      CORNER    the 3x3 square in every corner
+
+    Every instance is an image of the first one of its type under one of
+    the board's symmetries (with the squares in matching order), so all
+    instances of a type share one weight table.
+
+    Instances that are lines are listed in bit order, which lets us gather
+    their 8 bits into a byte with one multiplication, and turn the byte
+    into base-3 digits with a table lookup.
+*/
+
+public final class Patterns {
+    public final static int EDGE = 0;
+    public final static int LINE2 = 1;
+    public final static int DIAGONAL = 2;
+    public final static int CORNER = 3;
+    public final static int TYPES = 4;
+
+    public final static int[] TYPE_SIZE = new int[] { 8, 8, 8, 9 };
+
+    // number of configurations of each type, 3^size
+    public final static int[] TYPE_CONFIGURATIONS = new int[] { 6561, 6561, 6561, 19683 };
+
+    public final static int[][] INSTANCES;
+    public final static int[] INSTANCE_TYPE;
+
+    private final static long FILE_A = 0x0101010101010101L;
+    private final static long MAIN_DIAGONAL = 0x8040201008040201L;
+    private final static long ANTI_DIAGONAL = 0x0102040810204080L;
+
+    // line instances: (b >>> shift) & mask, times magic, has the line in the top byte
+    private final static int[] GATHER_SHIFT;
+    private final static long[] GATHER_MASK;
+    private final static long[] GATHER_MAGIC; /* 0 if the instance isn't a line */
+
+    // BASE3[byte] has digit (7 - k) set to 1 for every bit k of the byte
+    private final static int[] BASE3 = new int[256];
+
+    static {
+        List<int[]> instances = new ArrayList<int[]>();
+        List<Integer> types = new ArrayList<Integer>();
+        List<long[]> gathers = new ArrayList<long[]>();
+
+        final int[][] line_types = new int[][] { { EDGE, 0, 7 }, { LINE2, 1, 6 } };
+        for (int[] line_type : line_types) {
+            for (int i = 1; i < 3; i++) {
+                int row = line_type[i];
+                instances.add(line(8 * row, 1));
+                types.add(line_type[0]);
+                gathers.add(new long[] { 8 * row, 0xffL, 1L << 56 });
+            }
+            for (int i = 1; i < 3; i++) {
+                int col = line_type[i];
+                instances.add(line(col, 8));
+                types.add(line_type[0]);
+                gathers.add(new long[] { col, FILE_A, 0x0102040810204080L });
+            }
+        }
+
+        instances.add(line(0, 9));
+        types.add(DIAGONAL);
+        gathers.add(new long[] { 0, MAIN_DIAGONAL, FILE_A });
+        instances.add(line(56, -7));
+        types.add(DIAGONAL);
+        gathers.add(new long[] { 0, ANTI_DIAGONAL, FILE_A });
+
+        final int[] corner = new int[] { 0, 1, 2, 8, 9, 10, 16, 17, 18 };
+        for (int symmetry = 0; symmetry < 4; symmetry++) {
+            int[] squares = new int[corner.length];
+            for (int k = 0; k < corner.length; k++)
+                squares[k] = mirror(corner[k], symmetry);
+            instances.add(squares);
+            types.add(CORNER);
+            gathers.add(new long[] { 0, 0, 0 });
+        }
+
+        INSTANCES = instances.toArray(new int[0][]);
+        INSTANCE_TYPE = new int[INSTANCES.length];
+        GATHER_SHIFT = new int[INSTANCES.length];
+        GATHER_MASK = new long[INSTANCES.length];
+        GATHER_MAGIC = new long[INSTANCES.length];
+        for (int i = 0; i < INSTANCES.length; i++) {
+            INSTANCE_TYPE[i] = types.get(i);
+            GATHER_SHIFT[i] = (int) gathers.get(i)[0];
+            GATHER_MASK[i] = gathers.get(i)[1];
+            GATHER_MAGIC[i] = gathers.get(i)[2];
+        }
+
+        for (int b = 0; b < 256; b++) {
+            for (int k = 0; k < 8; k++) {
+                if ((b & (1 << k)) != 0)
+                    BASE3[b] += (int) Math.pow(3, 7 - k);
+            }
+        }
+    }
+
+    private Patterns() {
+    }
+
+    private static int[] line(int first, int step) {
+        int[] squares = new int[8];
+        for (int k = 0; k < 8; k++)
+            squares[k] = first + k * step;
+        return squares;
+    }
+
+    // bit 0 mirrors the rows, bit 1 the columns
+    private static int mirror(int index, int symmetry) {
+        int row = index / 8;
+        int col = index % 8;
+        if ((symmetry & 1) != 0)
+            row = 7 - row;
+        if ((symmetry & 2) != 0)
+            col = 7 - col;
+        return 8 * row + col;
+    }
+
+    /** @return base-3 configuration of the instance */
+    public static int index(final long x, final long o, final int instance) {
+        final long magic = GATHER_MAGIC[instance];
+        if (magic != 0) {
+            final int shift = GATHER_SHIFT[instance];
+            final long mask = GATHER_MASK[instance];
+            final int x8 = (int) ((((x >>> shift) & mask) * magic) >>> 56);
+            final int o8 = (int) ((((o >>> shift) & mask) * magic) >>> 56);
+            return BASE3[x8] + 2 * BASE3[o8];
+        }
+        return slowIndex(x, o, instance);
+    }
+
+    /** square by square, works for any instance */
+    static int slowIndex(final long x, final long o, final int instance) {
+        final int[] squares = INSTANCES[instance];
+        int index = 0;
+        for (int k = 0; k < squares.length; k++) {
+            final int square = squares[k];
+            index = 3 * index + (int) ((x >>> square) & 1) + 2 * (int) ((o >>> square) & 1);
+        }
+        return index;
+    }
+}
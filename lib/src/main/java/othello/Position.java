@@ -1,8 +1,6 @@
 package othello;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class Position {
     public final static int ROWS = 8;
@@ -10,23 +8,71 @@ public class Position {
     public final static int FIELDS = ROWS * COLS;
 
     private Color to_move = Color.X;
-    private Square[] board = new Square[FIELDS];
+
+    // discs of the player to move and of their opponent, see Bitboard.java
+    private long own;
+    private long opp;
+
+    // Zobrist hash, kept up to date by makeMove/unmakeMove/makePass
+    private long hash;
+
+    // square weights of the X discs minus those of the O discs, see
+    // SquareWeights.java, kept up to date like the hash
+    private int square_score;
 
     private Position() {
-        for (int i = 0; i < FIELDS; ++i){
-            board[i] = Square.EMPTY;
-        }
+        long x = Bitboard.bit(Field.E4) | Bitboard.bit(Field.D5);
+        long o = Bitboard.bit(Field.D4) | Bitboard.bit(Field.E5);
 
-        board[3*8+3] = board[4*8+4] = Square.O;
-        board[4*8+3] = board[3*8+4] = Square.X;
+        this.own = x;
+        this.opp = o;
+        this.hash = Zobrist.hash(x, o, to_move);
+        initEvaluation(x, o);
     }
 
     private Position(Square[] board, Color to_move) {
         assert board.length == FIELDS;
         assert to_move != null;
 
-        this.board = board;
+        long x = 0;
+        long o = 0;
+        for (int i = 0; i < FIELDS; ++i) {
+            if (board[i] == Square.X)
+                x |= Bitboard.bit(i);
+            else if (board[i] == Square.O)
+                o |= Bitboard.bit(i);
+        }
+
+        this.to_move = to_move;
+        this.own = to_move == Color.X ? x : o;
+        this.opp = to_move == Color.X ? o : x;
+        this.hash = Zobrist.hash(x, o, to_move);
+        initEvaluation(x, o);
+    }
+
+    private Position(long own, long opp, Color to_move) {
+        assert (own & opp) == 0;
+        assert to_move != null;
+
+        final long x = to_move == Color.X ? own : opp;
+        final long o = to_move == Color.X ? opp : own;
+        this.own = own;
+        this.opp = opp;
         this.to_move = to_move;
+        this.hash = Zobrist.hash(x, o, to_move);
+        initEvaluation(x, o);
+    }
+
+    private Position(Position other) {
+        this.own = other.own;
+        this.opp = other.opp;
+        this.to_move = other.to_move;
+        this.hash = other.hash;
+        this.square_score = other.square_score;
+    }
+
+    private void initEvaluation(long x, long o) {
+        square_score = SquareWeights.sum(x) - SquareWeights.sum(o);
     }
 
     // Factory methods
@@ -35,28 +81,46 @@ public class Position {
         return new Position();
     }
 
+    /** @return a fresh array, changing it doesn't affect the position */
     public Square[] getBoard() {
+        Square[] board = new Square[FIELDS];
+        for (int i = 0; i < FIELDS; ++i) {
+            board[i] = getSquareAtIndex(i);
+        }
         return board;
     }
 
     public static Position fromString(String ascii, Color to_move) {
-        Square[] board = ascii
-            .chars()
-            .mapToObj(c -> (char) c)
-            .filter(c -> ".XO".indexOf(c) != -1)
-            .map(Square::fromChar)
-            .collect(Collectors.toList())
-            .toArray(new Square[0]);
+        long x = 0;
+        long o = 0;
+        int index = 0;
+
+        // anything but the three square characters (like the spaces and
+        // newlines of toString) is skipped
+        for (int i = 0; i < ascii.length(); i++) {
+            final char c = ascii.charAt(i);
+            if (c == 'X')
+                x |= Bitboard.bit(index++);
+            else if (c == 'O')
+                o |= Bitboard.bit(index++);
+            else if (c == '.')
+                index++;
+        }
 
-        assert board.length == FIELDS;
+        assert index == FIELDS;
 
-        return new Position(board, to_move);
+        return fromBitboards(x, o, to_move);
+    }
+
+    public static Position fromBitboards(long x, long o, Color to_move) {
+        if (to_move == Color.X)
+            return new Position(x, o, to_move);
+        else
+            return new Position(o, x, to_move);
     }
 
     public Position copy() {
-        Position pos = Position.fromString(this.toString(), this.to_move);
-        pos.to_move = this.to_move;
-        return pos;
+        return new Position(this);
     }
 
     // Normal methods
@@ -70,32 +134,78 @@ public class Position {
     }
 
     public int getOccupiedNum() {
-        return 4;
+        return Bitboard.count(own | opp);
+    }
+
+    /** @return bitboard of the discs of the player to move */
+    public long getOwnBitboard() {
+        return own;
+    }
+
+    /** @return bitboard of the discs of the player waiting for their turn */
+    public long getOpponentBitboard() {
+        return opp;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public long getBitboard(Color color) {
+        return color == to_move ? own : opp;
+    }
+
+    /** @return square weights of our discs minus those of the opponent, see SquareWeights */
+    public int getSquareScore() {
+        return to_move == Color.X ? square_score : -square_score;
+    }
+
+    // Symmetries, see Symmetry.java
+
+    /** @return the position under the symmetry, with the same player to move */
+    public Position transform(final int symmetry) {
+        return new Position(Symmetry.transform(symmetry, own), Symmetry.transform(symmetry, opp), to_move);
+    }
+
+    /** @return the symmetry that takes this position to its canonical form */
+    public int canonicalSymmetry() {
+        return Symmetry.canonical(getBitboard(Color.X), getBitboard(Color.O));
+    }
+
+    public Position canonical() {
+        return transform(canonicalSymmetry());
+    }
+
+    /** @return Zobrist hash of the position under the symmetry, without building that position */
+    public long getHash(final int symmetry) {
+        return Zobrist.hash(Symmetry.transform(symmetry, getBitboard(Color.X)),
+            Symmetry.transform(symmetry, getBitboard(Color.O)), to_move);
+    }
+
+    /** @return the same key for the position and all its reflections */
+    public long canonicalHash() {
+        return getHash(canonicalSymmetry());
     }
 
     public List<Field> empty_fields() {
-        return Field.allFields()
-            .stream()
-            .filter(field -> getSquareAtField(field) == Square.EMPTY)
-            .collect(Collectors.toList());
+        return Bitboard.toFields(~(own | opp));
     }
 
     public Square getSquareAtField(Field field) {
-        int index = field.toIndex();
-        return board[index];
+        return getSquareAtIndex(field.toIndex());
+    }
+
+    private Square getSquareAtIndex(int index) {
+        if (Bitboard.contains(own, index))
+            return to_move.toSquare();
+        if (Bitboard.contains(opp, index))
+            return to_move.opposite().toSquare();
+        return Square.EMPTY;
     }
 
     private int calculateDifference() {
-        int X = 0;
-        int O = 0;
-
-        for (Square square : board) {
-            if (square == Square.X)
-                X++;
-            else if (square == Square.O)
-                O++;
-        }
-        return X - O;
+        int difference = Bitboard.count(own) - Bitboard.count(opp);
+        return to_move == Color.X ? difference : -difference;
     }
 
     public String formatResult(int difference) {
@@ -122,15 +232,15 @@ public class Position {
     }
 
     public Status generateStatus() {
-        final List<Field> moves = legalMoves();
-        if (moves.size() > 0) {
-            return Status.MovesAvailable(moves);
+        final long moves = legalMovesBitboard();
+        if (moves != 0) {
+            return Status.MovesAvailable(Bitboard.toFields(moves));
         }
 
         // current player has to pass, try to change color
-        final List<Field> moves_after_pass = legalMovesAfterPass();
-        if (moves_after_pass.size() > 0) {
-            return Status.OneSidedPass(moves_after_pass);
+        final long moves_after_pass = Bitboard.legalMoves(opp, own);
+        if (moves_after_pass != 0) {
+            return Status.OneSidedPass(Bitboard.toFields(moves_after_pass));
         }
 
         int difference = calculateDifference();
@@ -138,20 +248,31 @@ public class Position {
         return Status.GameFinished(difference, winner);
     }
 
-    private List<Field> generateMoves(Color to_move) {
-        return new MoveGenerator(to_move, this.board).legalMoves();
+    public long legalMovesBitboard() {
+        return Bitboard.legalMoves(own, opp);
     }
 
-    private List<Field> legalMovesAfterPass() {
-        return generateMoves(this.to_move.opposite());
+    /** @return false if the player to move has to pass or the game is over */
+    public boolean hasLegalMove() {
+        return Bitboard.hasLegalMove(own, opp);
+    }
+
+    /** like generateStatus().isGameFinished(), without building the status */
+    public boolean isTerminal() {
+        return !Bitboard.hasLegalMove(own, opp) && !Bitboard.hasLegalMove(opp, own);
     }
 
     public List<Field> legalMoves() {
-        return generateMoves(this.to_move);
+        return Bitboard.toFields(legalMovesBitboard());
     }
 
+    /** passing is its own inverse, call it again to undo */
     public void makePass() {
+        final long tmp = own;
+        own = opp;
+        opp = tmp;
         this.to_move = this.to_move.opposite();
+        this.hash ^= Zobrist.SIDE;
     }
 
     public Position applyMove(Field move) {
@@ -163,149 +284,75 @@ public class Position {
         return result;
     }
 
-    public void makeMove(Field move) {
-        List<Integer> to_flip = new MoveGenerator(to_move, board).makeMove(move);
+    /** @return bitboard of the flipped discs, pass it to unmakeMove to undo the move */
+    public long makeMove(Field move) {
+        return makeMove(move.toIndex());
+    }
 
-        for (int i : to_flip) {
-            board[i] = board[i].flip();
-        }
+    public long makeMove(int index) {
+        final long flipped = FlipTables.flipsFor(index, own, opp);
 
-        board[move.toIndex()] = to_move.toSquare();
+        final long new_own = own | flipped | Bitboard.bit(index);
+        own = opp & ~flipped;
+        opp = new_own;
+        hash ^= Zobrist.key(to_move, index) ^ Zobrist.flips(flipped) ^ Zobrist.SIDE;
+        updateEvaluation(index, flipped, 1);
         to_move = to_move.opposite();
-    }
 
-    public String toAscii() {
-        String result = "";
-        for (int row = 0; row < ROWS; row++) {
-            for (int col = 0; col < COLS; ++col) {
-                Square square = board[row*8 + col];
-                result += square.toString();
-            }
-        }
-        return result;
+        return flipped;
     }
 
-    @Override
-    public String toString() {
-        String result = "";
-        for (int row = 0; row < ROWS; row++) {
-            for (int col = 0; col < COLS; ++col) {
-                Square square = board[row*8 + col];
-                result += square.toString();
-                if (col < COLS-1) {
-                    result += " ";
-                }
-            }
-            result += "\n";
-        }
-        return result;
+    public void unmakeMove(Field move, long flipped) {
+        unmakeMove(move.toIndex(), flipped);
     }
-}
 
-class MoveGenerator {
-    public static final int ROWS = Position.ROWS + 2;
-    public static final int COLS = Position.COLS + 2;
-    public final static int FIELDS = ROWS * COLS;
-
-    // board with a sentinel frame around (consisting of nulls)
-    Square[][] board = new Square[ROWS][];
-    Color to_move;
-
-    public MoveGenerator(Color to_move, Square[] board) {
-        this.to_move = to_move;
-
-        for (int row = 0; row < ROWS; row++)
-            this.board[row] = new Square[COLS];
+    /** restores the position from before makeMove(index) which returned `flipped` */
+    public void unmakeMove(int index, long flipped) {
+        assert Bitboard.contains(opp, index);
 
-        for (int row = 0; row < Position.ROWS; row++)
-            for (int col = 0; col < Position.COLS; col++)
-                this.board[row+1][col+1] = board[row*8 +col];
+        final long old_own = opp & ~(flipped | Bitboard.bit(index));
+        opp = own | flipped;
+        own = old_own;
+        to_move = to_move.opposite();
+        hash ^= Zobrist.key(to_move, index) ^ Zobrist.flips(flipped) ^ Zobrist.SIDE;
+        updateEvaluation(index, flipped, -1);
     }
 
-    public List<Integer> makeMove(Field move) {
-        List<Integer> indexes_to_flip = new ArrayList<Integer>();
-
-        int row = 1 + move.toRow();
-        int col = 1 + move.toCol();
-
-        for (int delta_row: List.of(-1, 0, 1))
-            for (int delta_col: List.of(-1, 0, 1))
-                if (delta_row != 0 || delta_col != 0) {
-                    List<Integer> indexes = tryCaptureOnLine(row, col, delta_row, delta_col);
-                    if (indexes != null)
-                        indexes_to_flip.addAll(indexes);
-                }
-
-        return indexes_to_flip;
+    // to_move playing at index and flipping `flipped`, or undoing that with sign -1
+    private void updateEvaluation(int index, long flipped, int sign) {
+        // the flipped discs leave the opponent's sum and join ours
+        final int gain = SquareWeights.WEIGHTS[index] + 2 * SquareWeights.sum(flipped);
+        square_score += to_move == Color.X ? sign * gain : -sign * gain;
     }
 
-    private List<Integer> tryCaptureOnLine(int row, int col, int delta_row, int delta_col) {
-        List<Integer> indexes_to_capture = new ArrayList<Integer>();
-        int x = row + delta_row;
-        int y = col + delta_col;
-
-        final Square opp_square = to_move.opposite().toSquare();
-        final Square own_square = to_move.toSquare();
-
-        while (board[x][y] == opp_square) {
-            indexes_to_capture.add((x-1)*8 + (y-1));
-
-            x += delta_row;
-            y += delta_col;
+    public String toAscii() {
+        final long x = getBitboard(Color.X);
+        final long o = getBitboard(Color.O);
+        final char[] result = new char[FIELDS];
+        for (int i = 0; i < FIELDS; i++) {
+            result[i] = squareChar(x, o, i);
         }
-
-        // we need to have our stone at the other side of the line with no gaps
-        if (board[x][y] == own_square)
-            return indexes_to_capture;
-        else
-            return null;
-    }
-
-    public List<Field> legalMoves() {
-        List<Field> legal_moves = new ArrayList<Field>();
-
-        for (int row = 0; row < MoveGenerator.ROWS; row++)
-            for (int col = 0; col < MoveGenerator.COLS; col++)
-                if (board[row][col] == Square.EMPTY)
-                    if (isCapturePossible(row, col))
-                        legal_moves.add(Field.fromRowCol(row-1, col-1));
-
-        return legal_moves;
-    }
-
-    private boolean isCapturePossible(int row, int col) {
-        for (int delta_row: List.of(-1, 0, 1))
-            for (int delta_col: List.of(-1, 0, 1))
-                if (delta_row != 0 || delta_col != 0)
-                    if (isCapturePossibleOnLine(row, col, delta_row, delta_col))
-                        return true;
-        return false;
-    }
-
-    // Checks if we can flip any stones one the given line
-    private boolean isCapturePossibleOnLine(int row, int col, int delta_row, int delta_col) {
-        assert board[row][col] == Square.EMPTY;
-
-        List<Color> colors_on_diagonal = traverseLine(row, col, delta_row, delta_col);
-        if (colors_on_diagonal.isEmpty())
-            return false;
-
-        Color opponent = to_move.opposite();
-        return colors_on_diagonal.get(0) == opponent && colors_on_diagonal.contains(to_move);
+        return new String(result);
     }
 
-    private List<Color> traverseLine(int row, int col, int delta_row, int delta_col) {
-        List<Color> colors_on_diagonal = new ArrayList<Color>();
-        int x = row + delta_row;
-        int y = col + delta_col;
-
-        while (board[x][y] != null && board[x][y] != Square.EMPTY) {
-            colors_on_diagonal.add(board[x][y].toColor());
-
-            x += delta_row;
-            y += delta_col;
+    @Override
+    public String toString() {
+        // every square is followed by a space, or by a newline at the end of a row
+        final long x = getBitboard(Color.X);
+        final long o = getBitboard(Color.O);
+        final char[] result = new char[2 * FIELDS];
+        for (int i = 0; i < FIELDS; i++) {
+            result[2 * i] = squareChar(x, o, i);
+            result[2 * i + 1] = i % COLS == COLS - 1 ? '\n' : ' ';
         }
+        return new String(result);
+    }
 
-        return colors_on_diagonal;
+    private static char squareChar(long x, long o, int index) {
+        if (Bitboard.contains(x, index))
+            return 'X';
+        if (Bitboard.contains(o, index))
+            return 'O';
+        return '.';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package othello;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/*
+    Binary form of a position, 17 bytes instead of 64 ASCII characters:
+
+        long    X bitboard
+        long    O bitboard
+        byte    player to move, 0 for X and 1 for O
+
+    Big-endian like the rest of our files. For query strings the bytes are
+    written in base64url without padding, 23 characters.
+
+    The ByteBuffer methods read and write in place, so records can be
+    decoded straight from a memory-mapped file or a network buffer.
+*/
+
+public final class PositionCodec {
+    public static final int BYTES = 2 * Long.BYTES + 1;
+
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+
+    private PositionCodec() {
+    }
+
+    /** writes at the position of the buffer and advances it */
+    public static void write(final Position pos, final ByteBuffer buffer) {
+        buffer.putLong(pos.getBitboard(Color.X))
+            .putLong(pos.getBitboard(Color.O))
+            .put((byte) pos.getPlayerToMove().ordinal());
+    }
+
+    /** writes at the given offset, the position of the buffer doesn't change */
+    public static void write(final Position pos, final ByteBuffer buffer, final int offset) {
+        buffer.putLong(offset, pos.getBitboard(Color.X))
+            .putLong(offset + Long.BYTES, pos.getBitboard(Color.O))
+            .put(offset + 2 * Long.BYTES, (byte) pos.getPlayerToMove().ordinal());
+    }
+
+    /** reads from the position of the buffer and advances it */
+    public static Position read(final ByteBuffer buffer) {
+        final long x = buffer.getLong();
+        final long o = buffer.getLong();
+        return decode(x, o, buffer.get());
+    }
+
+    /** reads from the given offset, the position of the buffer doesn't change */
+    public static Position read(final ByteBuffer buffer, final int offset) {
+        return decode(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES), buffer.get(offset + 2 * Long.BYTES));
+    }
+
+    public static byte[] toBytes(final Position pos) {
+        final ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        write(pos, buffer);
+        return buffer.array();
+    }
+
+    /** @throws IllegalArgumentException if the bytes are not a position */
+    public static Position fromBytes(final byte[] bytes) {
+        if (bytes.length != BYTES)
+            throw new IllegalArgumentException("a position takes " + BYTES + " bytes, got " + bytes.length);
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    public static String toBase64(final Position pos) {
+        return BASE64.encodeToString(toBytes(pos));
+    }
+
+    /** @throws IllegalArgumentException if the string is not a position */
+    public static Position fromBase64(final String code) {
+        return fromBytes(BASE64_DECODER.decode(code));
+    }
+
+    private static Position decode(final long x, final long o, final byte to_move) {
+        if ((x & o) != 0)
+            throw new IllegalArgumentException("a square can't have both colors");
+        if (to_move != 0 && to_move != 1)
+            throw new IllegalArgumentException("bad player to move " + to_move);
+
+        return Position.fromBitboards(x, o, to_move == 0 ? Color.X : Color.O);
+    }
+}
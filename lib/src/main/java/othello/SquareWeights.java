@@ -0,0 +1,26 @@
+package othello;
+
+/** static value of a disc on every square, the simplest evaluation there is */
+public final class SquareWeights {
+    public final static int[] WEIGHTS = new int[] {
+        100, -20, 10, 30, 30, 10, -20, 100,
+        -20, -50,  0,  0,  0,  0, -50, -20,
+         10,   0,  0,  0,  0,  0,   0,  10,
+         30,   0,  0,  0,  0,  0,   0,  30,
+         30,   0,  0,  0,  0,  0,   0,  30,
+         10,   0,  0,  0,  0,  0,   0,  10,
+        -20, -50,  0,  0,  0,  0, -50, -20,
+        100, -20, 10, 30, 30, 10, -20, 100
+    };
+
+    private SquareWeights() {
+    }
+
+    /** @return sum of the weights of the squares in the mask */
+    public static int sum(long mask) {
+        int sum = 0;
+        for (; mask != 0; mask &= mask - 1)
+            sum += WEIGHTS[Long.numberOfTrailingZeros(mask)];
+        return sum;
+    }
+}
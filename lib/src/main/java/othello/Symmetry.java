@@ -0,0 +1,170 @@
+package othello;
+
+/*
+    The 8 symmetries of the board (rotations and reflections), as operations
+    on bitboards.
+
+    Symmetry s is a composition of three basic operations, applied in this
+    order:
+        bit 2 (TRANSPOSE)  reflect in the A1-H8 diagonal
+        bit 0 (MIRROR)     reflect columns, A <-> H
+        bit 1 (FLIP)       reflect rows, 1 <-> 8
+    so IDENTITY = 0 and e.g. MIRROR | FLIP is the rotation by 180 degrees.
+
+    The canonical form of a position is its smallest image under the 8
+    symmetries, comparing the X bitboard first and then the O bitboard.
+    Positions that are reflections of each other have the same canonical
+    form, which lets caches and books store them once. Position has the
+    shortcuts: canonicalSymmetry, transform and getHash(symmetry) for the
+    key of the canonical form without building it.
+
+    A move found in the canonical frame is taken back to the frame of the
+    position with inverseTransform(symmetry, move), where symmetry is the
+    one that took the position to its canonical form.
+*/
+
+public final class Symmetry {
+    public static final int COUNT = 8;
+
+    public static final int IDENTITY = 0;
+    public static final int MIRROR = 1;
+    public static final int FLIP = 2;
+    public static final int TRANSPOSE = 4;
+
+    // INVERSE[s] undoes s
+    private static final int[] INVERSE = new int[COUNT];
+    // FIELD_MAP[s][i] is the square that square i goes to under s
+    private static final int[][] FIELD_MAP = new int[COUNT][Position.FIELDS];
+
+    static {
+        for (int s = 0; s < COUNT; s++) {
+            for (int i = 0; i < Position.FIELDS; i++)
+                FIELD_MAP[s][i] = Long.numberOfTrailingZeros(transform(s, Bitboard.bit(i)));
+        }
+
+        for (int s = 0; s < COUNT; s++) {
+            for (int t = 0; t < COUNT; t++) {
+                boolean undoes = true;
+                for (int i = 0; i < Position.FIELDS; i++)
+                    undoes &= FIELD_MAP[t][FIELD_MAP[s][i]] == i;
+                if (undoes)
+                    INVERSE[s] = t;
+            }
+        }
+    }
+
+    private Symmetry() {
+    }
+
+    public static long transform(final int symmetry, long mask) {
+        assert symmetry >= 0 && symmetry < COUNT;
+
+        if ((symmetry & TRANSPOSE) != 0)
+            mask = transpose(mask);
+        if ((symmetry & MIRROR) != 0)
+            mask = mirror(mask);
+        if ((symmetry & FLIP) != 0)
+            mask = flip(mask);
+        return mask;
+    }
+
+    public static int transform(final int symmetry, final int index) {
+        return FIELD_MAP[symmetry][index];
+    }
+
+    public static Field transform(final int symmetry, final Field field) {
+        return Field.fromIndex(FIELD_MAP[symmetry][field.toIndex()]);
+    }
+
+    /** @return the board under the symmetry, as a new array */
+    public static Square[] transform(final int symmetry, final Square[] board) {
+        assert board.length == Position.FIELDS;
+
+        final Square[] result = new Square[Position.FIELDS];
+        for (int i = 0; i < Position.FIELDS; i++)
+            result[FIELD_MAP[symmetry][i]] = board[i];
+        return result;
+    }
+
+    public static int inverse(final int symmetry) {
+        return INVERSE[symmetry];
+    }
+
+    /** undoes transform(symmetry, index) */
+    public static int inverseTransform(final int symmetry, final int index) {
+        return FIELD_MAP[INVERSE[symmetry]][index];
+    }
+
+    /** undoes transform(symmetry, field) */
+    public static Field inverseTransform(final int symmetry, final Field field) {
+        return Field.fromIndex(FIELD_MAP[INVERSE[symmetry]][field.toIndex()]);
+    }
+
+    /** undoes transform(symmetry, mask) */
+    public static long inverseTransform(final int symmetry, final long mask) {
+        return transform(INVERSE[symmetry], mask);
+    }
+
+    /** @return the symmetry that takes the position (x, o) to its canonical form */
+    public static int canonical(final long x, final long o) {
+        // the 8 images of x with a transpose, 2 mirrors and 4 flips, in the
+        // order of the symmetries
+        final long x1 = mirror(x);
+        final long x2 = flip(x);
+        final long x3 = flip(x1);
+        final long x4 = transpose(x);
+        final long x5 = mirror(x4);
+        final long x6 = flip(x4);
+        final long x7 = flip(x5);
+
+        final long min = minUnsigned(minUnsigned(minUnsigned(x, x1), minUnsigned(x2, x3)),
+                                     minUnsigned(minUnsigned(x4, x5), minUnsigned(x6, x7)));
+        int candidates = (x == min ? 1 : 0) | (x1 == min ? 2 : 0) | (x2 == min ? 4 : 0) | (x3 == min ? 8 : 0)
+            | (x4 == min ? 16 : 0) | (x5 == min ? 32 : 0) | (x6 == min ? 64 : 0) | (x7 == min ? 128 : 0);
+
+        if ((candidates & (candidates - 1)) == 0)
+            return Integer.numberOfTrailingZeros(candidates);
+
+        // the X discs are symmetric, the O discs decide, the first symmetry wins a tie
+        int best = Integer.numberOfTrailingZeros(candidates);
+        long best_o = transform(best, o);
+        for (candidates &= candidates - 1; candidates != 0; candidates &= candidates - 1) {
+            final int s = Integer.numberOfTrailingZeros(candidates);
+            final long to = transform(s, o);
+            if (Long.compareUnsigned(to, best_o) < 0) {
+                best = s;
+                best_o = to;
+            }
+        }
+        return best;
+    }
+
+    private static long minUnsigned(final long a, final long b) {
+        return Long.compareUnsigned(a, b) <= 0 ? a : b;
+    }
+
+    /** reflects rows, 1 <-> 8 */
+    public static long flip(final long mask) {
+        return Long.reverseBytes(mask);
+    }
+
+    /** reflects columns, A <-> H */
+    public static long mirror(long mask) {
+        mask = ((mask >>> 1) & 0x5555555555555555L) | ((mask & 0x5555555555555555L) << 1);
+        mask = ((mask >>> 2) & 0x3333333333333333L) | ((mask & 0x3333333333333333L) << 2);
+        mask = ((mask >>> 4) & 0x0f0f0f0f0f0f0f0fL) | ((mask & 0x0f0f0f0f0f0f0f0fL) << 4);
+        return mask;
+    }
+
+    /** reflects in the A1-H8 diagonal, B1 <-> A2 */
+    public static long transpose(long mask) {
+        // swap 4x4 blocks, then 2x2 blocks inside them, then single squares
+        long t = 0x0f0f0f0f00000000L & (mask ^ (mask << 28));
+        mask ^= t ^ (t >>> 28);
+        t = 0x3333000033330000L & (mask ^ (mask << 14));
+        mask ^= t ^ (t >>> 14);
+        t = 0x5500550055005500L & (mask ^ (mask << 7));
+        mask ^= t ^ (t >>> 7);
+        return mask;
+    }
+}
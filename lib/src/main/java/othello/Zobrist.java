@@ -0,0 +1,58 @@
+package othello;
+
+import java.util.SplittableRandom;
+
+/*
+    Zobrist hashing: every (color, square) pair gets a random 64-bit key and
+    the hash of a position is the XOR of the keys of all discs, plus SIDE
+    when O is to move.
+
+    Flipping a disc replaces the key of one color with the other, which is
+    the same as XOR-ing with FLIP[square], whatever the color of the disc.
+*/
+
+public final class Zobrist {
+    // fixed seed, so hashes are stable between runs and can be stored
+    private static final long SEED = 0x0a7e11011eL;
+
+    static final long[] X = new long[Position.FIELDS];
+    static final long[] O = new long[Position.FIELDS];
+    static final long[] FLIP = new long[Position.FIELDS];
+    static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < Position.FIELDS; i++) {
+            X[i] = random.nextLong();
+            O[i] = random.nextLong();
+            FLIP[i] = X[i] ^ O[i];
+        }
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long hash(long x, long o, Color to_move) {
+        long hash = to_move == Color.O ? SIDE : 0;
+
+        for (; x != 0; x &= x - 1)
+            hash ^= X[Long.numberOfTrailingZeros(x)];
+        for (; o != 0; o &= o - 1)
+            hash ^= O[Long.numberOfTrailingZeros(o)];
+
+        return hash;
+    }
+
+    static long key(Color color, int index) {
+        return color == Color.X ? X[index] : O[index];
+    }
+
+    /** @return the hash difference caused by flipping the given discs */
+    static long flips(long flipped) {
+        long hash = 0;
+        for (; flipped != 0; flipped &= flipped - 1)
+            hash ^= FLIP[Long.numberOfTrailingZeros(flipped)];
+        return hash;
+    }
+}
@@ -0,0 +1,343 @@
+package othello.db;
+
+import othello.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+    Builds a PositionDatabase from game transcripts, in memory bounded by
+    the chunk size whatever the number of games.
+
+    Input: one game per line, the moves in the usual notation ("f5d6c3..."),
+    upper or lower case, passes as "--" or left out. Anything after the
+    first whitespace is ignored, as are empty lines and lines starting
+    with #. Every game is replayed with Position.makeMove; games with an
+    illegal move or that don't reach the end are skipped.
+
+    Every position before a move (up to max_plies) is counted under the
+    key of PositionDatabase together with the result for the player to
+    move. The counts are gathered in an open-addressing table of primitive
+    arrays, which merges repeated positions (the openings mostly) right
+    away. When the table is full its keys are sorted and written to a
+    temporary run file, and in the end the runs are merged into the
+    database, adding up the counts of equal keys. That's an external merge
+    sort: memory is the table plus a read buffer per run.
+*/
+
+public class GameImporter {
+    public final static int DEFAULT_CHUNK = 1 << 20;
+
+    private final static int BUFFER_BYTES = 1 << 16;
+
+    // a game has at most 60 moves and a few passes
+    private final static int MAX_PLIES = 2 * Position.FIELDS;
+
+    private final int max_plies;
+    private final Path temp_dir;
+
+    // the table of the current chunk, a slot is free while its games are 0
+    private final int capacity;
+    private final int slot_mask;
+    private final int slot_shift;
+    private final long[] keys;
+    private final int[] games;
+    private final int[] wins;
+    private final int[] draws;
+    private int used = 0;
+    private final long[] sorted;
+
+    // keys and players of the current game, before its result is known
+    private final long[] game_keys = new long[MAX_PLIES];
+    private final Color[] game_players = new Color[MAX_PLIES];
+
+    private final List<Path> runs = new ArrayList<>();
+
+    private long imported = 0;
+    private long skipped = 0;
+    private long positions = 0;
+
+    /**
+     * @param max_plies positions after this many moves are left out
+     * @param chunk number of distinct keys kept in memory before a run is written
+     * @param temp_dir where the runs go, they are deleted at the end
+     */
+    public GameImporter(int max_plies, int chunk, Path temp_dir) {
+        assert max_plies > 0;
+        assert chunk > 0 && chunk <= 1 << 28;
+
+        this.max_plies = max_plies;
+        this.temp_dir = temp_dir;
+        this.capacity = chunk;
+
+        // at most half full, so the probes stay short
+        final int slots = Integer.highestOneBit(Math.max(2, 2 * chunk - 1)) << 1;
+        this.slot_mask = slots - 1;
+        this.slot_shift = 64 - Integer.numberOfTrailingZeros(slots);
+        this.keys = new long[slots];
+        this.games = new int[slots];
+        this.wins = new int[slots];
+        this.draws = new int[slots];
+        this.sorted = new long[chunk];
+    }
+
+    public GameImporter(int max_plies, Path temp_dir) {
+        this(max_plies, DEFAULT_CHUNK, temp_dir);
+    }
+
+    /** reads all the games and writes the database */
+    public void importGames(BufferedReader in, Path database) throws IOException {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+
+                final int end = firstWhitespace(line);
+                if (addGame(end < 0 ? line : line.substring(0, end)))
+                    imported++;
+                else
+                    skipped++;
+            }
+
+            writeRun();
+            merge(database);
+        } finally {
+            for (Path run : runs)
+                Files.deleteIfExists(run);
+            runs.clear();
+        }
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /** @return number of positions counted, with repetitions */
+    public long getPositions() {
+        return positions;
+    }
+
+    // @return false if the game was skipped
+    private boolean addGame(final String moves) throws IOException {
+        final Position pos = Position.initialPosition();
+        int plies = 0;
+
+        for (int i = 0; i + 1 < moves.length(); i += 2) {
+            final char file = Character.toLowerCase(moves.charAt(i));
+            final char rank = moves.charAt(i + 1);
+            if (file == '-' && rank == '-')
+                continue;
+            if (file < 'a' || file > 'h' || rank < '1' || rank > '8')
+                return false;
+
+            if (!pos.hasLegalMove())
+                pos.makePass();
+
+            final int move = (rank - '1') * Position.COLS + (file - 'a');
+            if (!Bitboard.contains(pos.legalMovesBitboard(), move))
+                return false;
+
+            if (plies < max_plies) {
+                game_keys[plies] = key(pos, move);
+                game_players[plies] = pos.getPlayerToMove();
+                plies++;
+            }
+            pos.makeMove(move);
+        }
+
+        if (!pos.isTerminal())
+            return false;
+
+        final int difference = Bitboard.count(pos.getBitboard(Color.X)) - Bitboard.count(pos.getBitboard(Color.O));
+        for (int i = 0; i < plies; i++) {
+            final int for_player = game_players[i] == Color.X ? difference : -difference;
+            count(game_keys[i], for_player > 0 ? 1 : 0, for_player == 0 ? 1 : 0);
+        }
+        return true;
+    }
+
+    private static long key(final Position pos, final int move) {
+        final int symmetry = pos.canonicalSymmetry();
+        return PositionDatabase.Key(pos.getHash(symmetry), Symmetry.transform(symmetry, move));
+    }
+
+    private void count(final long key, final int win, final int draw) throws IOException {
+        positions++;
+
+        int slot = slot(key);
+        while (games[slot] != 0 && keys[slot] != key)
+            slot = (slot + 1) & slot_mask;
+
+        if (games[slot] == 0) {
+            if (used == capacity) {
+                writeRun();
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            wins[slot] = 0;
+            draws[slot] = 0;
+            used++;
+        }
+        games[slot]++;
+        wins[slot] += win;
+        draws[slot] += draw;
+    }
+
+    private int slot(final long key) {
+        // the low bits are the move, the high bits of the product depend on all of them
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> slot_shift);
+    }
+
+    // writes the table sorted by key to a new run file and empties it
+    private void writeRun() throws IOException {
+        if (used == 0)
+            return;
+
+        int count = 0;
+        for (int slot = 0; slot <= slot_mask; slot++) {
+            if (games[slot] != 0)
+                sorted[count++] = keys[slot];
+        }
+        Arrays.sort(sorted, 0, count);
+
+        final Path run = Files.createTempFile(temp_dir, "positions", ".run");
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), BUFFER_BYTES))) {
+            for (int i = 0; i < count; i++) {
+                int slot = slot(sorted[i]);
+                while (keys[slot] != sorted[i] || games[slot] == 0)
+                    slot = (slot + 1) & slot_mask;
+
+                out.writeLong(keys[slot]);
+                out.writeInt(games[slot]);
+                out.writeInt(wins[slot]);
+                out.writeInt(draws[slot]);
+            }
+        }
+
+        Arrays.fill(games, 0);
+        used = 0;
+    }
+
+    // merges the sorted runs into the database, adding up the counts of equal keys
+    private void merge(Path database) throws IOException {
+        final PriorityQueue<Run> queue = new PriorityQueue<>((a, b) -> Long.compare(a.key, b.key));
+        try (FileChannel channel = FileChannel.open(database,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            try {
+                for (Path path : runs) {
+                    final Run run = new Run(path);
+                    if (run.next())
+                        queue.add(run);
+                    else
+                        run.close();
+                }
+
+                // the header goes in last, when the number of records is known
+                channel.position(PositionDatabase.HEADER_BYTES);
+                final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+                long records = 0;
+
+                while (!queue.isEmpty()) {
+                    final long key = queue.peek().key;
+                    int key_games = 0;
+                    int key_wins = 0;
+                    int key_draws = 0;
+
+                    while (!queue.isEmpty() && queue.peek().key == key) {
+                        final Run run = queue.poll();
+                        key_games += run.games;
+                        key_wins += run.wins;
+                        key_draws += run.draws;
+                        if (run.next())
+                            queue.add(run);
+                        else
+                            run.close();
+                    }
+
+                    if (buffer.remaining() < PositionDatabase.RECORD_BYTES)
+                        flush(channel, buffer);
+                    buffer.putLong(key).putInt(key_games).putInt(key_wins).putInt(key_draws);
+                    records++;
+                }
+                flush(channel, buffer);
+
+                final ByteBuffer header = ByteBuffer.allocate(PositionDatabase.HEADER_BYTES)
+                    .putInt(PositionDatabase.MAGIC)
+                    .putInt(PositionDatabase.VERSION)
+                    .putLong(records);
+                header.flip();
+                channel.write(header, 0);
+            } finally {
+                for (Run run : queue)
+                    run.close();
+            }
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    private static int firstWhitespace(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (Character.isWhitespace(line.charAt(i)))
+                return i;
+        }
+        return -1;
+    }
+
+    /** a run file being merged, with its current record */
+    private static class Run implements AutoCloseable {
+        private final DataInputStream in;
+        long key;
+        int games;
+        int wins;
+        int draws;
+
+        Run(Path path) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_BYTES));
+        }
+
+        // @return false at the end of the run
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            games = in.readInt();
+            wins = in.readInt();
+            draws = in.readInt();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package othello.db;
+
+import othello.Field;
+
+/** results of the games where a move was played, from the perspective of the player making it */
+public class MoveStats {
+    final public Field move; /* null for the totals of a position */
+    final public int games;
+    final public int wins;
+    final public int draws;
+    final public int losses;
+
+    public MoveStats(Field move, int games, int wins, int draws) {
+        this.move = move;
+        this.games = games;
+        this.wins = wins;
+        this.draws = draws;
+        this.losses = games - wins - draws;
+    }
+
+    /** @return share of the points, a draw counting half */
+    public double score() {
+        return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s games=%d +%d =%d -%d score=%.1f%%",
+            move == null ? "total" : move.toString().toLowerCase(), games, wins, draws, losses, 100 * score());
+    }
+}
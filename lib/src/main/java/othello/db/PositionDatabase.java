@@ -0,0 +1,154 @@
+package othello.db;
+
+import othello.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Positions of played games with the moves played in them and how those
+    games ended, built by GameImporter.
+
+    There is one record per position and move. Positions are stored in
+    their canonical form (see Symmetry.java), so the reflections of a
+    position share their records, and the move is in the canonical frame.
+    The record key is the Zobrist hash of the canonical position with its
+    lowest 6 bits replaced by the move: the records of a position are next
+    to each other in key order, and finding them is a binary search for the
+    first one.
+
+    File layout (big-endian):
+
+        int     MAGIC
+        int     VERSION
+        long    number of records
+        then the records, sorted by key (as signed longs):
+            long    key
+            int     games
+            int     wins, of the player making the move
+            int     draws
+
+    The file is memory-mapped in segments, since a single mapping can't
+    go past 2 GB.
+*/
+
+public class PositionDatabase {
+    public final static int MAGIC = 0x4f544844; // "OTHD"
+    public final static int VERSION = 1;
+
+    final static int HEADER_BYTES = 16;
+    final static int RECORD_BYTES = 20;
+
+    final static long MOVE_MASK = 63;
+
+    private final static int SEGMENT_BITS = 26;
+    private final static long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final ByteBuffer[] segments;
+    private final long size;
+
+    private PositionDatabase(ByteBuffer[] segments, long size) {
+        this.segments = segments;
+        this.size = size;
+    }
+
+    public static PositionDatabase load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0)
+                    break;
+            }
+            if (header.position() < HEADER_BYTES || header.getInt(0) != MAGIC)
+                throw new IOException("not a position database file");
+            if (header.getInt(4) != VERSION)
+                throw new IOException("unsupported position database version " + header.getInt(4));
+
+            final long size = header.getLong(8);
+            if (size < 0 || channel.size() != HEADER_BYTES + RECORD_BYTES * size)
+                throw new IOException("position database file has a wrong size");
+
+            // the mappings stay valid after the channel is closed
+            final ByteBuffer[] segments = new ByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++) {
+                final long first = (long) i << SEGMENT_BITS;
+                final long records = Math.min(size - first, 1L << SEGMENT_BITS);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_BYTES + first * RECORD_BYTES, records * RECORD_BYTES);
+            }
+            return new PositionDatabase(segments, size);
+        }
+    }
+
+    /** @return number of records, one per position and move */
+    public long size() {
+        return size;
+    }
+
+    /** @return the games through the position, or null if it's not in the database */
+    public PositionStats lookup(final Position pos) {
+        final int symmetry = pos.canonicalSymmetry();
+        final long position_key = Key(pos.getHash(symmetry), 0);
+
+        final long legal = pos.legalMovesBitboard();
+        final List<MoveStats> moves = new ArrayList<>();
+        int games = 0;
+        int wins = 0;
+        int draws = 0;
+
+        for (long record = lowerBound(position_key); record < size; record++) {
+            final long key = key(record);
+            if ((key & ~MOVE_MASK) != position_key)
+                break;
+
+            final int move = Symmetry.inverseTransform(symmetry, (int) (key & MOVE_MASK));
+            // a hash collision must not produce an illegal move
+            if (!Bitboard.contains(legal, move))
+                continue;
+
+            final ByteBuffer segment = segments[(int) (record >>> SEGMENT_BITS)];
+            final int offset = (int) (record & SEGMENT_MASK) * RECORD_BYTES;
+            final MoveStats stats = new MoveStats(Field.fromIndex(move),
+                segment.getInt(offset + 8), segment.getInt(offset + 12), segment.getInt(offset + 16));
+            moves.add(stats);
+            games += stats.games;
+            wins += stats.wins;
+            draws += stats.draws;
+        }
+
+        if (moves.isEmpty())
+            return null;
+
+        moves.sort((a, b) -> Integer.compare(b.games, a.games));
+        return new PositionStats(new MoveStats(null, games, wins, draws), moves);
+    }
+
+    /** the key of a record, the hash of the canonical position with the move in the low bits */
+    static long Key(final long hash, final int move) {
+        return (hash & ~MOVE_MASK) | move;
+    }
+
+    private long key(final long record) {
+        return segments[(int) (record >>> SEGMENT_BITS)].getLong((int) (record & SEGMENT_MASK) * RECORD_BYTES);
+    }
+
+    // first record with a key not below `key`
+    private long lowerBound(final long key) {
+        long low = 0;
+        long high = size;
+
+        while (low < high) {
+            final long middle = (low + high) >>> 1;
+            if (key(middle) < key)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,23 @@
+package othello.db;
+
+import java.util.List;
+
+/** what the database knows about a position: all the games through it and the moves played */
+public class PositionStats {
+    final public MoveStats total;
+    final public List<MoveStats> moves; /* most played first */
+
+    public PositionStats(MoveStats total, List<MoveStats> moves) {
+        this.total = total;
+        this.moves = moves;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder(total.toString());
+        for (MoveStats move : moves) {
+            result.append('\n').append(move);
+        }
+        return result.toString();
+    }
+}
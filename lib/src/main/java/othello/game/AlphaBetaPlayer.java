@@ -0,0 +1,181 @@
+package othello.game;
+
+import othello.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class AlphaBetaPlayer implements Player {
+    private String id;
+    private int max_depth;
+    private long time_limit_ms;
+    // kept between moves, so the next search starts warm
+    private TranspositionTable tt;
+    // null for a single-threaded search on the caller's thread
+    private ParallelSearch parallel_search;
+    public boolean debug = false;
+
+    // shared by all the search threads, so it has to be thread-safe
+    public Evaluator evaluator = Evaluator.SQUARE_WEIGHTS;
+
+    // positions with this many empty squares or fewer are solved exactly
+    public int endgame_empties = EndgameSolver.DEFAULT_EMPTIES;
+    public EndgameSolver.Mode endgame_mode = EndgameSolver.Mode.EXACT;
+
+    // consulted before searching, null for no book
+    public OpeningBook book = null;
+
+    // set by stop(), for good
+    private volatile boolean stopped = false;
+    // stops the solver or the search running now, null between searches
+    private volatile Runnable stop_running = null;
+
+    /** @param time_limit_ms wall-clock budget per move, 0 means no limit */
+    public AlphaBetaPlayer(String id, int max_depth, long time_limit_ms, TranspositionTable tt) {
+        assert max_depth > 0;
+        assert time_limit_ms >= 0;
+
+        this.id = id;
+        this.max_depth = max_depth;
+        this.time_limit_ms = time_limit_ms;
+        this.tt = tt;
+    }
+
+    /** searches with all the threads of the pool, sharing one transposition table */
+    public AlphaBetaPlayer(String id, int max_depth, long time_limit_ms, TranspositionTable tt, ForkJoinPool pool) {
+        this(id, max_depth, time_limit_ms, tt);
+        this.parallel_search = new ParallelSearch(pool);
+    }
+
+    public AlphaBetaPlayer(String id, int max_depth, long time_limit_ms) {
+        this(id, max_depth, time_limit_ms, new TranspositionTable());
+    }
+
+    public AlphaBetaPlayer(String id, int max_depth) {
+        this(id, max_depth, 0);
+    }
+
+    public String getName() {
+        return "AlphaBetaPlayer_" + id;
+    }
+
+    /** searches deeper and deeper until max_depth or until the time is up */
+    public SearchResult search(final Position pos) {
+        try {
+            return searchPosition(pos);
+        } finally {
+            stop_running = null;
+        }
+    }
+
+    /**
+     * Stops the search running now, which returns the best move it has
+     * found; safe to call from other threads. A stop before a search
+     * starts counts too: a stopped player stays stopped, and every later
+     * search returns right away. Use a player per search that may be
+     * stopped.
+     */
+    public void stop() {
+        stopped = true;
+        final Runnable stop = stop_running;
+        if (stop != null) {
+            stop.run();
+        }
+    }
+
+    // registers how to stop the part of the search that starts now
+    private void running(final Runnable stop) {
+        stop_running = stop;
+        // stopped before it started
+        if (stopped) {
+            stop.run();
+        }
+    }
+
+    private SearchResult searchPosition(final Position pos) {
+        if (book != null) {
+            final SearchResult from_book = book.probe(pos);
+            if (from_book != null) {
+                if (this.debug) {
+                    System.out.println("book: " + from_book);
+                }
+                return from_book;
+            }
+        }
+
+        final long start = System.nanoTime();
+        final int empties = Bitboard.count(~(pos.getOwnBitboard() | pos.getOpponentBitboard()));
+
+        if (empties <= endgame_empties) {
+            // half of the budget for the solver, the rest for the search if it fails
+            final EndgameSolver solver = new EndgameSolver(endgame_mode, time_limit_ms / 2);
+            running(solver::stop);
+            final SearchResult solved = solver.solve(pos);
+            if (solved != null) {
+                if (this.debug) {
+                    System.out.println("solved: " + solved);
+                }
+                return solved;
+            }
+        }
+
+        long time_left_ms = 0;
+        if (time_limit_ms > 0) {
+            time_left_ms = Math.max(1, time_limit_ms - (System.nanoTime() - start) / 1_000_000);
+        }
+
+        tt.newSearch();
+        SearchResult result;
+        if (parallel_search == null) {
+            final Search search = new Search(pos, time_left_ms, tt, evaluator, 0);
+            running(search::stop);
+            result = search.run(max_depth);
+        } else {
+            running(parallel_search::stop);
+            result = parallel_search.run(pos, max_depth, time_left_ms, tt, evaluator);
+        }
+
+        if (this.debug) {
+            System.out.println(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * A search of the position with the table and the settings of this
+     * player, for pondering: it runs on another thread while the opponent
+     * thinks, and fills the table for the next call of search. Its result
+     * can also be played directly once it has searched long enough; run
+     * it with getMaxDepth().
+     *
+     * @param time_limit_ms as for the constructor, 0 means no limit
+     * @return null if search wouldn't search the position (book, endgame, no moves)
+     */
+    public Search ponder(final Position pos, final long time_limit_ms) {
+        if (!pos.hasLegalMove())
+            return null;
+        if (book != null && book.probe(pos) != null)
+            return null;
+        if (Bitboard.count(~(pos.getOwnBitboard() | pos.getOpponentBitboard())) <= endgame_empties)
+            return null;
+
+        return new Search(pos, time_limit_ms, tt, evaluator, 0);
+    }
+
+    public int getMaxDepth() {
+        return max_depth;
+    }
+
+    public Field bestMove(final Position pos, final List<Field> moves) {
+        assert !moves.isEmpty();
+
+        return search(pos).move;
+    }
+
+    public int bestMove(final Position pos, final long moves) {
+        assert moves != 0;
+
+        return search(pos).move.toIndex();
+    }
+}
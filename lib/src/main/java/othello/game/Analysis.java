@@ -0,0 +1,49 @@
+package othello.game;
+
+import othello.Field;
+
+import java.util.Collections;
+import java.util.List;
+
+/** the best moves after a completed iteration of Search.analyze, best first */
+public class Analysis {
+    final public int depth;
+    final public long nodes; /* total since the start of the search */
+    final public long time_ms; /* since the start of the search */
+    final public List<Line> lines;
+
+    public Analysis(int depth, long nodes, long time_ms, List<Line> lines) {
+        this.depth = depth;
+        this.nodes = nodes;
+        this.time_ms = time_ms;
+        this.lines = Collections.unmodifiableList(lines);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder(
+            String.format("depth=%d nodes=%d time=%dms", depth, nodes, time_ms));
+        for (Line line : lines) {
+            result.append('\n').append(line);
+        }
+        return result.toString();
+    }
+
+    /** a move with its exact score at the depth of the analysis and the expected line */
+    public static class Line {
+        final public Field move;
+        final public int score;
+        final public List<Field> pv; /* starting with move, null for a pass */
+
+        public Line(Field move, int score, List<Field> pv) {
+            this.move = move;
+            this.score = score;
+            this.pv = pv;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("move=%s score=%d pv=%s", move, score, pv);
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package othello.game;
+
+import othello.*;
+
+/*
+    Perfect play for the last few empty squares.
+
+    The solver searches to the end of the game on raw bitboards, with
+    scores being the final disc difference from the perspective of the
+    player to move. In WIN_LOSS_DRAW mode it only proves the sign of the
+    result, with the (-1, 1) window, which is a lot cheaper.
+
+    Move ordering:
+    - with many empties, fastest-first: moves that leave the opponent the
+      fewest replies go first, then moves into odd regions, then corners,
+    - with few empties, generating and sorting the moves isn't worth it:
+      empties in quadrants with an odd number of empties (parity) are tried
+      before the others,
+    - the last 3, 2 and 1 empties have their own routines without move
+      generation.
+*/
+
+public class EndgameSolver {
+    public enum Mode { EXACT, WIN_LOSS_DRAW }
+
+    public final static int DEFAULT_EMPTIES = 14;
+
+    // below this many empties we use the parity order instead of sorting
+    private final static int FASTEST_FIRST_EMPTIES = 7;
+
+    private final static int CHECK_INTERVAL_MASK = 4095;
+
+    // two plies per empty square at most (a move and a pass)
+    private final static int MAX_PLY = 2 * Position.FIELDS;
+
+    private final static long[] QUADRANTS = new long[] {
+        0x000000000f0f0f0fL, 0x00000000f0f0f0f0L,
+        0x0f0f0f0f00000000L, 0xf0f0f0f000000000L,
+    };
+
+    private final static long CORNERS = 0x8100000000000081L;
+
+    private final Mode mode;
+    private final long deadline;
+    private volatile boolean stopped = false;
+
+    private long nodes = 0;
+    private int ply = 0;
+
+    // per-ply buffers for the sorted moves, so the search doesn't allocate
+    private final int[][] move_buffer = new int[MAX_PLY][Position.FIELDS];
+    private final int[][] value_buffer = new int[MAX_PLY][Position.FIELDS];
+
+    /** @param time_limit_ms wall-clock budget, 0 means no limit */
+    public EndgameSolver(final Mode mode, final long time_limit_ms) {
+        this.mode = mode;
+        this.deadline = time_limit_ms > 0
+            ? System.nanoTime() + time_limit_ms * 1_000_000
+            : Long.MAX_VALUE;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /** @return the best move with its score on the Search scale, or null if the time ran out */
+    public SearchResult solve(final Position pos) {
+        final long start = System.nanoTime();
+        final long own = pos.getOwnBitboard();
+        final long opp = pos.getOpponentBitboard();
+        final long moves = Bitboard.legalMoves(own, opp);
+        final int empties = Bitboard.count(~(own | opp));
+
+        if (moves == 0) {
+            return new SearchResult(null, 0, 0, 0, 0);
+        }
+
+        int alpha = mode == Mode.EXACT ? -Position.FIELDS - 1 : -1;
+        final int beta = mode == Mode.EXACT ? Position.FIELDS + 1 : 1;
+
+        int best_move = -1;
+        int best_score = -Search.INFINITY;
+
+        try {
+            final int count = sortMoves(own, opp, moves);
+            final int[] sorted = move_buffer[0];
+
+            for (int i = 0; i < count; i++) {
+                final int move = sorted[i];
+                final long flipped = Bitboard.flips(move, own, opp);
+                ply++;
+                final int score = -search(opp & ~flipped, own | flipped | Bitboard.bit(move), -beta, -alpha);
+                ply--;
+
+                if (score > best_score) {
+                    best_score = score;
+                    best_move = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta)
+                            break;
+                    }
+                }
+            }
+        } catch (SolverTimeout timeout) {
+            return null;
+        }
+
+        final long time_ms = (System.nanoTime() - start) / 1_000_000;
+        return new SearchResult(Field.fromIndex(best_move), toSearchScore(best_score), empties, nodes, time_ms);
+    }
+
+    // the Search scale puts every win above every heuristic evaluation
+    private int toSearchScore(final int score) {
+        if (score > 0)
+            return mode == Mode.EXACT ? Search.WIN_EVAL + score : Search.WIN_EVAL;
+        if (score < 0)
+            return mode == Mode.EXACT ? Search.LOSS_EVAL + score : Search.LOSS_EVAL;
+        return 0;
+    }
+
+    private int search(final long own, final long opp, final int alpha, final int beta) {
+        if ((++nodes & CHECK_INTERVAL_MASK) == 0)
+            checkTime();
+
+        final long empty = ~(own | opp);
+
+        switch (Long.bitCount(empty)) {
+            case 0:
+                return difference(own, opp);
+            case 1:
+                return solve1(own, opp, Long.numberOfTrailingZeros(empty));
+            case 2:
+                return solve2(own, opp, alpha, beta, empty);
+            case 3:
+                return solve3(own, opp, alpha, beta, empty);
+            default:
+                if (Long.bitCount(empty) <= FASTEST_FIRST_EMPTIES)
+                    return searchShallow(own, opp, alpha, beta, empty);
+                return searchDeep(own, opp, alpha, beta);
+        }
+    }
+
+    private int searchDeep(final long own, final long opp, int alpha, final int beta) {
+        final long moves = Bitboard.legalMoves(own, opp);
+
+        if (moves == 0)
+            return pass(own, opp, alpha, beta);
+
+        final int count = sortMoves(own, opp, moves);
+        final int[] sorted = move_buffer[ply];
+        int best_score = -Search.INFINITY;
+
+        for (int i = 0; i < count; i++) {
+            final int move = sorted[i];
+            final long flipped = Bitboard.flips(move, own, opp);
+            ply++;
+            final int score = -search(opp & ~flipped, own | flipped | Bitboard.bit(move), -beta, -alpha);
+            ply--;
+
+            if (score > best_score) {
+                best_score = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta)
+                        break;
+                }
+            }
+        }
+
+        return best_score;
+    }
+
+    private int searchShallow(final long own, final long opp, int alpha, final int beta, final long empty) {
+        final long odd = oddQuadrants(empty);
+        int best_score = -Search.INFINITY;
+
+        // empties in odd quadrants first, then the rest
+        for (int round = 0; round < 2; round++) {
+            long candidates = empty & (round == 0 ? odd : ~odd);
+
+            for (; candidates != 0; candidates &= candidates - 1) {
+                final int move = Long.numberOfTrailingZeros(candidates);
+                final long flipped = Bitboard.flips(move, own, opp);
+                if (flipped == 0)
+                    continue;
+
+                final int score = -search(opp & ~flipped, own | flipped | Bitboard.bit(move), -beta, -alpha);
+
+                if (score > best_score) {
+                    best_score = score;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta)
+                            return best_score;
+                    }
+                }
+            }
+        }
+
+        if (best_score == -Search.INFINITY)
+            return pass(own, opp, alpha, beta);
+        return best_score;
+    }
+
+    private int pass(final long own, final long opp, final int alpha, final int beta) {
+        if (Bitboard.legalMoves(opp, own) == 0)
+            return difference(own, opp);
+
+        ply++;
+        final int score = -search(opp, own, -beta, -alpha);
+        ply--;
+        return score;
+    }
+
+    private int solve3(final long own, final long opp, int alpha, final int beta, final long empty) {
+        // the empty square alone in its quadrant goes first
+        final long odd = oddQuadrants(empty);
+        final long ordered_first = empty & odd;
+        int best_score = -Search.INFINITY;
+
+        for (int round = 0; round < 2; round++) {
+            long candidates = round == 0 ? ordered_first : empty & ~ordered_first;
+
+            for (; candidates != 0; candidates &= candidates - 1) {
+                final int move = Long.numberOfTrailingZeros(candidates);
+                final long flipped = Bitboard.flips(move, own, opp);
+                if (flipped == 0)
+                    continue;
+
+                nodes++;
+                final long new_own = own | flipped | Bitboard.bit(move);
+                final long new_opp = opp & ~flipped;
+                final int score = -solve2(new_opp, new_own, -beta, -alpha, empty & ~Bitboard.bit(move));
+
+                if (score > best_score) {
+                    best_score = score;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta)
+                            return best_score;
+                    }
+                }
+            }
+        }
+
+        if (best_score != -Search.INFINITY)
+            return best_score;
+
+        // pass, the opponent plays one of the 3 squares
+        best_score = Search.INFINITY;
+        int opp_beta = beta;
+        for (long candidates = empty; candidates != 0; candidates &= candidates - 1) {
+            final int move = Long.numberOfTrailingZeros(candidates);
+            final long flipped = Bitboard.flips(move, opp, own);
+            if (flipped == 0)
+                continue;
+
+            nodes++;
+            final long new_opp = opp | flipped | Bitboard.bit(move);
+            final long new_own = own & ~flipped;
+            final int score = solve2(new_own, new_opp, alpha, opp_beta, empty & ~Bitboard.bit(move));
+
+            if (score < best_score) {
+                best_score = score;
+                if (score < opp_beta) {
+                    opp_beta = score;
+                    if (opp_beta <= alpha)
+                        return best_score;
+                }
+            }
+        }
+
+        if (best_score == Search.INFINITY)
+            return difference(own, opp);
+        return best_score;
+    }
+
+    private int solve2(final long own, final long opp, final int alpha, final int beta, final long empty) {
+        final int a = Long.numberOfTrailingZeros(empty);
+        final int b = 63 - Long.numberOfLeadingZeros(empty);
+        int best_score = -Search.INFINITY;
+
+        long flipped = Bitboard.flips(a, own, opp);
+        if (flipped != 0) {
+            nodes++;
+            best_score = -solve1(opp & ~flipped, own | flipped | Bitboard.bit(a), b);
+            if (best_score >= beta)
+                return best_score;
+        }
+
+        flipped = Bitboard.flips(b, own, opp);
+        if (flipped != 0) {
+            nodes++;
+            final int score = -solve1(opp & ~flipped, own | flipped | Bitboard.bit(b), a);
+            if (score > best_score)
+                best_score = score;
+        }
+
+        if (best_score != -Search.INFINITY)
+            return best_score;
+
+        // pass, the opponent plays one of the 2 squares
+        best_score = Search.INFINITY;
+
+        flipped = Bitboard.flips(a, opp, own);
+        if (flipped != 0) {
+            nodes++;
+            best_score = solve1(own & ~flipped, opp | flipped | Bitboard.bit(a), b);
+            if (best_score <= alpha)
+                return best_score;
+        }
+
+        flipped = Bitboard.flips(b, opp, own);
+        if (flipped != 0) {
+            nodes++;
+            final int score = solve1(own & ~flipped, opp | flipped | Bitboard.bit(b), a);
+            if (score < best_score)
+                best_score = score;
+        }
+
+        if (best_score == Search.INFINITY)
+            return difference(own, opp);
+        return best_score;
+    }
+
+    private int solve1(final long own, final long opp, final int square) {
+        nodes++;
+        final int difference = difference(own, opp);
+
+        long flipped = Bitboard.flips(square, own, opp);
+        if (flipped != 0)
+            return difference + 2 * Long.bitCount(flipped) + 1;
+
+        flipped = Bitboard.flips(square, opp, own);
+        if (flipped != 0)
+            return difference - 2 * Long.bitCount(flipped) - 1;
+
+        // nobody can play the last square
+        return difference;
+    }
+
+    /** fills move_buffer[ply] best first, @return the number of moves */
+    private int sortMoves(final long own, final long opp, long moves) {
+        final int[] sorted = move_buffer[ply];
+        final int[] values = value_buffer[ply];
+        final long odd = oddQuadrants(~(own | opp));
+        int count = 0;
+
+        for (; moves != 0; moves &= moves - 1) {
+            final int move = Long.numberOfTrailingZeros(moves);
+            final long flipped = Bitboard.flips(move, own, opp);
+            final long replies = Bitboard.legalMoves(opp & ~flipped, own | flipped | Bitboard.bit(move));
+
+            int value = -16 * Long.bitCount(replies);
+            if (Bitboard.contains(odd, move))
+                value += 4;
+            if (Bitboard.contains(CORNERS, move))
+                value += 8;
+
+            // insertion sort, there are only a few moves
+            int i = count++;
+            while (i > 0 && values[i - 1] < value) {
+                sorted[i] = sorted[i - 1];
+                values[i] = values[i - 1];
+                i--;
+            }
+            sorted[i] = move;
+            values[i] = value;
+        }
+
+        return count;
+    }
+
+    /** @return union of the quadrants with an odd number of empty squares */
+    private static long oddQuadrants(final long empty) {
+        long odd = 0;
+        for (long quadrant : QUADRANTS) {
+            if ((Long.bitCount(empty & quadrant) & 1) != 0)
+                odd |= quadrant;
+        }
+        return odd;
+    }
+
+    private static int difference(final long own, final long opp) {
+        return Long.bitCount(own) - Long.bitCount(opp);
+    }
+
+    private void checkTime() {
+        if (stopped || System.nanoTime() > deadline) {
+            stopped = true;
+            throw SolverTimeout.INSTANCE;
+        }
+    }
+
+    private static class SolverTimeout extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        static final SolverTimeout INSTANCE = new SolverTimeout();
+
+        private SolverTimeout() {
+            super("solver timeout", null, false, false);
+        }
+    }
+}
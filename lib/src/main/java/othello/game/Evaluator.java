@@ -0,0 +1,10 @@
+package othello.game;
+
+import othello.*;
+
+/** heuristic value of a position for the player to move, between LOSS_EVAL and WIN_EVAL */
+public interface Evaluator {
+    Evaluator SQUARE_WEIGHTS = Search::evaluate;
+
+    int evaluate(Position pos);
+}
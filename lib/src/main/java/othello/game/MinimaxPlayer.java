@@ -22,32 +22,24 @@ public class MinimaxPlayer implements Player {
     }
 
     private int eval_terminal(final Position pos) {
-        int evaluation = 0;
-        Square[] board = pos.getBoard();
-
-        for (int i = 0; i < Position.FIELDS; ++i) {
-            if (board[i] == Square.EMPTY) continue;
-
-            int value = SquareValuationPlayer.WEIGHTS[i];
-            int sign = (board[i] == pos.getPlayerToMove().toSquare()) ? 1 : -1;
-            evaluation += value * sign;
-        }
-        return evaluation;
+        return pos.getSquareScore();
     }
 
-    /** evaluate the current position
+    /** evaluate the current position, the position is restored before returning
      * @return      0 if DRAW is the best move
      * @return  10000 if the current player wins
      * @return -10000 if the current player losses
      */
     private int eval(final Position pos, final int depth) {
-        Color to_move = pos.getPlayerToMove();
-        final Status status = pos.generateStatus();
+        final long moves = pos.legalMovesBitboard();
+        final long own = pos.getOwnBitboard();
+        final long opp = pos.getOpponentBitboard();
 
-        if (status.isGameFinished()) {
-            if (status.winner == null)
+        if (moves == 0 && !Bitboard.hasLegalMove(opp, own)) {
+            final int difference = Bitboard.count(own) - Bitboard.count(opp);
+            if (difference == 0)
                 return 0;
-            else if (status.winner == to_move)
+            else if (difference > 0)
                 return WIN_EVAL;
             else
                 return LOSS_EVAL;
@@ -57,15 +49,21 @@ public class MinimaxPlayer implements Player {
             return eval_terminal(pos);
         }
 
-        if (status.isPassForced()) {
+        if (moves == 0) {
+            pos.makePass();
+            final int evaluation = -eval(pos, depth-1);
             pos.makePass();
-            return -eval(pos, depth-1);
+            return evaluation;
         }
 
         int best_evaluation = Integer.MIN_VALUE;
 
-        for (Field move : status.moves) {
-            int evaluation = -eval(pos.applyMove(move), depth-1);
+        for (long rest = moves; rest != 0; rest &= rest - 1) {
+            final int move = Long.numberOfTrailingZeros(rest);
+            final long flipped = pos.makeMove(move);
+            int evaluation = -eval(pos, depth-1);
+            pos.unmakeMove(move, flipped);
+
             if (evaluation > best_evaluation) {
                 best_evaluation = evaluation;
             }
@@ -75,11 +73,21 @@ public class MinimaxPlayer implements Player {
     }
 
     public Field bestMove(final Position pos, final List<Field> moves) {
+        return Field.fromIndex(bestMove(pos, Bitboard.fromFields(moves)));
+    }
+
+    public int bestMove(final Position pos, final long moves) {
         int best_evaluation = Integer.MIN_VALUE;
-        Field best_move = null;
+        int best_move = -1;
+
+        // the search makes and unmakes moves in place
+        final Position board = pos.copy();
 
-        for (Field move : moves) {
-            int evaluation = -eval(pos.applyMove(move), depth-1);
+        for (long rest = moves; rest != 0; rest &= rest - 1) {
+            final int move = Long.numberOfTrailingZeros(rest);
+            final long flipped = board.makeMove(move);
+            int evaluation = -eval(board, depth-1);
+            board.unmakeMove(move, flipped);
 
             if (this.debug) {
                 System.out.println("evaluation = " + evaluation);
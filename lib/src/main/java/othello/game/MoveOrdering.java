@@ -0,0 +1,138 @@
+package othello.game;
+
+import othello.*;
+
+import java.util.Arrays;
+
+/*
+    The order in which a search tries the moves of a node. Alpha-beta
+    prunes the most when the best move comes first, so after the move from
+    the transposition table (tried by the search before asking for the
+    rest) the moves are sorted by:
+
+    - killers: the last two moves that caused a beta cutoff at the same
+      ply, in a sibling of this node most of the time,
+    - history: how often and how deep a move caused a cutoff anywhere in
+      the tree, per player to move,
+    - mobility: moves that leave the opponent the fewest replies first;
+      this needs a flip and a move generation per move, so it's only done
+      when the node is at least MOBILITY_DEPTH deep,
+    - the square weights of SquareValuationPlayer, corners first and the
+      squares next to the corners last.
+
+    The sorted moves go to per-ply buffers, so sorting doesn't allocate.
+    One instance per search, it's not thread-safe.
+
+    Without heuristics the moves are left in board order, which is how the
+    search used to go and what the gain is measured against.
+*/
+
+public class MoveOrdering {
+    // a move and a pass per empty square at most
+    public final static int MAX_PLY = 2 * Position.FIELDS;
+
+    // below this depth the static order is good enough for the cost
+    public final static int MOBILITY_DEPTH = 3;
+
+    private final static int KILLER_1_VALUE = 1 << 26;
+    private final static int KILLER_2_VALUE = 1 << 25;
+    private final static int MOBILITY_VALUE = 1 << 16;
+    private final static int SQUARE_VALUE = 1 << 8;
+
+    // history scores are halved when one gets above this, so they stay below the mobility term
+    private final static int HISTORY_LIMIT = 1 << 16;
+
+    private final int[] killers = new int[2 * MAX_PLY];
+    private final int[] history = new int[2 * Position.FIELDS];
+
+    private final int[][] move_buffer = new int[MAX_PLY][Position.FIELDS];
+    private final int[][] value_buffer = new int[MAX_PLY][Position.FIELDS];
+
+    private final boolean heuristics;
+
+    public MoveOrdering(final boolean heuristics) {
+        this.heuristics = heuristics;
+        Arrays.fill(killers, TranspositionTable.NO_MOVE);
+    }
+
+    public MoveOrdering() {
+        this(true);
+    }
+
+    /**
+     * Sorts the moves best first into the buffer of the ply.
+     *
+     * @param moves the legal moves, without the ones already searched
+     * @return the number of moves, the moves are in moves(ply)
+     */
+    public int sort(final int ply, final Color to_move, final long own, final long opp,
+                    long moves, final int depth) {
+        final int[] sorted = move_buffer[ply];
+        final int[] values = value_buffer[ply];
+        int count = 0;
+
+        if (!heuristics) {
+            for (; moves != 0; moves &= moves - 1)
+                sorted[count++] = Long.numberOfTrailingZeros(moves);
+            return count;
+        }
+
+        final int killer_1 = killers[2 * ply];
+        final int killer_2 = killers[2 * ply + 1];
+        final int history_offset = to_move.ordinal() * Position.FIELDS;
+        final boolean mobility = depth >= MOBILITY_DEPTH;
+
+        for (; moves != 0; moves &= moves - 1) {
+            final int move = Long.numberOfTrailingZeros(moves);
+
+            int value;
+            if (move == killer_1) {
+                value = KILLER_1_VALUE;
+            } else if (move == killer_2) {
+                value = KILLER_2_VALUE;
+            } else {
+                value = history[history_offset + move] + SQUARE_VALUE * SquareValuationPlayer.WEIGHTS[move];
+                if (mobility) {
+                    final long flipped = Bitboard.flips(move, own, opp);
+                    final long replies = Bitboard.legalMoves(opp & ~flipped, own | flipped | Bitboard.bit(move));
+                    value -= MOBILITY_VALUE * Long.bitCount(replies);
+                }
+            }
+
+            // insertion sort, there are only a few moves
+            int i = count++;
+            while (i > 0 && values[i - 1] < value) {
+                sorted[i] = sorted[i - 1];
+                values[i] = values[i - 1];
+                i--;
+            }
+            sorted[i] = move;
+            values[i] = value;
+        }
+
+        return count;
+    }
+
+    /** the moves sorted by the last call to sort for the ply */
+    public int[] moves(final int ply) {
+        return move_buffer[ply];
+    }
+
+    /** remembers a move that caused a beta cutoff */
+    public void cutoff(final int ply, final Color to_move, final int move, final int depth) {
+        if (!heuristics)
+            return;
+
+        if (killers[2 * ply] != move) {
+            killers[2 * ply + 1] = killers[2 * ply];
+            killers[2 * ply] = move;
+        }
+
+        final int index = to_move.ordinal() * Position.FIELDS + move;
+        history[index] += depth * depth;
+        if (history[index] > HISTORY_LIMIT) {
+            for (int i = 0; i < history.length; i++)
+                history[i] /= 2;
+        }
+    }
+}
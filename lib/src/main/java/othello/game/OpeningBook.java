@@ -0,0 +1,180 @@
+package othello.game;
+
+import othello.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+    Precomputed best moves for positions of the opening.
+
+    Positions are stored in their canonical form (see Symmetry.java) under
+    the Zobrist hash of that form, so one entry covers all the reflections
+    of a position. The move is stored in the canonical frame too and is
+    mapped back to the frame of the probed position.
+
+    File layout (big-endian):
+
+        int     MAGIC
+        int     VERSION
+        int     number of records
+        then the records, sorted by key (as signed longs):
+            long    key
+            byte    move (square index)
+            byte    depth of the search that chose it
+            short   score, from the perspective of the player to move
+
+    Files are memory-mapped and probed with a binary search, so a lookup
+    touches a handful of pages and doesn't allocate besides the result.
+*/
+
+public class OpeningBook {
+    public final static int MAGIC = 0x4f544842; // "OTHB"
+    public final static int VERSION = 1;
+
+    private final static int HEADER_BYTES = 12;
+    private final static int RECORD_BYTES = 12;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private OpeningBook(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+            throw new IOException("not an opening book file");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("unsupported opening book version " + buffer.getInt(4));
+
+        this.size = buffer.getInt(8);
+        if (size < 0 || buffer.capacity() != HEADER_BYTES + (long) RECORD_BYTES * size)
+            throw new IOException("opening book file has a wrong size");
+
+        this.buffer = buffer;
+    }
+
+    public static OpeningBook load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new OpeningBook(buffer);
+        }
+    }
+
+    public void writeTo(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer data = buffer.duplicate().position(0);
+            while (data.hasRemaining())
+                channel.write(data);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** @return the book move for the position, or null if it's not in the book */
+    public SearchResult probe(final Position pos) {
+        final int symmetry = pos.canonicalSymmetry();
+        final long key = pos.getHash(symmetry);
+
+        final int record = find(key);
+        if (record < 0)
+            return null;
+
+        final int offset = HEADER_BYTES + record * RECORD_BYTES;
+        final int move = Symmetry.inverseTransform(symmetry, (int) buffer.get(offset + 8));
+        final int depth = buffer.get(offset + 9);
+        final int score = buffer.getShort(offset + 10);
+
+        // a hash collision must not produce an illegal move
+        if (!Bitboard.contains(pos.legalMovesBitboard(), move))
+            return null;
+
+        return new SearchResult(Field.fromIndex(move), score, depth, 0, 0);
+    }
+
+    private int find(final long key) {
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final long middle_key = buffer.getLong(HEADER_BYTES + middle * RECORD_BYTES);
+
+            if (middle_key < key)
+                low = middle + 1;
+            else if (middle_key > key)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    /*
+        Collects the entries of a new book in memory. Each position is kept
+        once, with the result of the deepest search. Safe to fill from
+        several threads.
+    */
+    public static class Builder {
+        // canonical key -> move | depth << 8 | score << 16
+        private final Map<Long, Integer> entries = new HashMap<>();
+
+        public synchronized void add(final Position pos, final Field move, final int score, final int depth) {
+            assert depth >= 0 && depth < 128;
+
+            final int symmetry = pos.canonicalSymmetry();
+            final long key = pos.getHash(symmetry);
+
+            final int clamped = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score));
+            final int entry = Symmetry.transform(symmetry, move.toIndex()) | depth << 8 | clamped << 16;
+
+            entries.merge(key, entry, (old, added) -> EntryDepth(added) > EntryDepth(old) ? added : old);
+        }
+
+        /** @return the entry for the position, like OpeningBook.probe, or null */
+        public synchronized SearchResult probe(final Position pos) {
+            final int symmetry = pos.canonicalSymmetry();
+            final Integer entry = entries.get(pos.getHash(symmetry));
+            if (entry == null)
+                return null;
+
+            final int move = Symmetry.inverseTransform(symmetry, entry & 0xff);
+            return new SearchResult(Field.fromIndex(move), entry >> 16, EntryDepth(entry), 0, 0);
+        }
+
+        public synchronized int size() {
+            return entries.size();
+        }
+
+        public synchronized OpeningBook build() {
+            final long[] keys = entries.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+
+            final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + RECORD_BYTES * keys.length);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(keys.length);
+            for (long key : keys) {
+                final int entry = entries.get(key);
+                buffer.putLong(key)
+                    .put((byte) (entry & 0xff))
+                    .put((byte) EntryDepth(entry))
+                    .putShort((short) (entry >> 16));
+            }
+
+            try {
+                return new OpeningBook(buffer.position(0));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static int EntryDepth(final int entry) {
+            return (entry >>> 8) & 0xff;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package othello.game;
+
+import othello.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+    Lazy SMP: every thread of the pool runs its own iterative deepening
+    search of the same position, and they share what they learn through
+    the transposition table. Once the main search (thread 0) is done the
+    helpers are stopped, and the result of the deepest completed search
+    is returned.
+*/
+
+public class ParallelSearch {
+    private final ForkJoinPool pool;
+    private final int threads;
+    // the searches of the run in progress, for stop()
+    private volatile List<Search> running = null;
+    // set by stop(), for good like for AlphaBetaPlayer
+    private volatile boolean stopped = false;
+
+    public ParallelSearch(ForkJoinPool pool, int threads) {
+        assert threads > 0;
+
+        this.pool = pool;
+        this.threads = threads;
+    }
+
+    /** uses all the threads of the pool */
+    public ParallelSearch(ForkJoinPool pool) {
+        this(pool, pool.getParallelism());
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Stops the run in progress, it returns what the threads have; safe to
+     * call from other threads. Later runs return right away as well.
+     */
+    public void stop() {
+        stopped = true;
+        final List<Search> searches = running;
+        if (searches != null) {
+            for (Search search : searches) {
+                search.stop();
+            }
+        }
+    }
+
+    public SearchResult run(final Position pos, final int max_depth, final long time_limit_ms,
+                            final TranspositionTable tt) {
+        return run(pos, max_depth, time_limit_ms, tt, Evaluator.SQUARE_WEIGHTS);
+    }
+
+    /** the evaluator is shared by all the threads */
+    public SearchResult run(final Position pos, final int max_depth, final long time_limit_ms,
+                            final TranspositionTable tt, final Evaluator evaluator) {
+        final long start = System.nanoTime();
+
+        final List<Search> searches = new ArrayList<Search>(threads);
+        final List<ForkJoinTask<SearchResult>> tasks = new ArrayList<ForkJoinTask<SearchResult>>(threads);
+
+        for (int i = 0; i < threads; i++) {
+            searches.add(new Search(pos, time_limit_ms, tt, evaluator, i));
+        }
+        running = searches;
+        // stopped while the searches were created, before stop() could see them
+        if (stopped) {
+            for (Search search : searches) {
+                search.stop();
+            }
+        }
+        for (Search search : searches) {
+            tasks.add(pool.submit(() -> search.run(max_depth)));
+        }
+
+        SearchResult best = tasks.get(0).join();
+
+        running = null;
+        for (Search search : searches) {
+            search.stop();
+        }
+
+        long nodes = 0;
+        final List<SearchStats> stats = new ArrayList<SearchStats>(threads);
+        for (int i = 0; i < threads; i++) {
+            final SearchResult result = tasks.get(i).join();
+            nodes += result.nodes;
+            if (result.stats != null) {
+                stats.add(result.stats);
+            }
+
+            if (result.depth > best.depth) {
+                best = result;
+            }
+        }
+
+        final long time_ms = (System.nanoTime() - start) / 1_000_000;
+        return new SearchResult(best.move, best.score, best.depth, nodes, time_ms, best.pv,
+            stats.isEmpty() ? null : SearchStats.Sum(stats, time_ms));
+    }
+}
@@ -0,0 +1,58 @@
+package othello.game;
+
+import othello.*;
+
+/*
+    Evaluation as a sum of pattern weights plus mobility terms:
+
+    - patterns: the weight of the base-3 configuration of every instance
+      in Patterns, read from the stage of the game,
+    - mobility: our legal moves minus theirs,
+    - potential mobility: empty squares next to their discs minus empty
+      squares next to ours, places where moves can appear later.
+
+    Stateless and allocation-free, so one instance can be shared by all the
+    search threads.
+*/
+
+public class PatternEvaluator implements Evaluator {
+    private final static int MAX_EVAL = Search.WIN_EVAL - 1;
+
+    private final PatternWeights weights;
+
+    public PatternEvaluator(PatternWeights weights) {
+        this.weights = weights;
+    }
+
+    public PatternEvaluator() {
+        this(PatternWeights.fromSquareWeights(1, 8, 4));
+    }
+
+    public int evaluate(final Position pos) {
+        final long own = pos.getOwnBitboard();
+        final long opp = pos.getOpponentBitboard();
+        final long x = pos.getBitboard(Color.X);
+        final long o = pos.getBitboard(Color.O);
+        final long empty = ~(own | opp);
+        final int stage = weights.stage(Bitboard.count(own | opp));
+
+        int patterns = 0;
+        for (int instance = 0; instance < Patterns.INSTANCES.length; instance++) {
+            final int type = Patterns.INSTANCE_TYPE[instance];
+            patterns += weights.weight(stage, type, Patterns.index(x, o, instance));
+        }
+        if (pos.getPlayerToMove() == Color.O)
+            patterns = -patterns;
+
+        final int mobility = Bitboard.count(Bitboard.legalMoves(own, opp))
+            - Bitboard.count(Bitboard.legalMoves(opp, own));
+        final int potential_mobility = Bitboard.count(Bitboard.neighbours(opp) & empty)
+            - Bitboard.count(Bitboard.neighbours(own) & empty);
+
+        final int evaluation = patterns
+            + weights.mobility(stage) * mobility
+            + weights.potentialMobility(stage) * potential_mobility;
+
+        return Math.max(-MAX_EVAL, Math.min(MAX_EVAL, evaluation));
+    }
+}
@@ -0,0 +1,185 @@
+package othello.game;
+
+import othello.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+    Weights of the pattern evaluation, from the perspective of X.
+
+    The game is split into stages by the number of discs on the board, and
+    every stage has its own weights. File layout (big-endian):
+
+        int     MAGIC
+        int     VERSION
+        int     number of stages
+        then for every stage:
+            short[3^size]   weights of each pattern type, in Patterns order,
+                            indexed by the base-3 configuration
+            short           weight of mobility
+            short           weight of potential mobility
+
+    Files are memory-mapped, the weights are read straight from the mapping.
+*/
+
+public class PatternWeights {
+    public final static int MAGIC = 0x4f544857; // "OTHW"
+    public final static int VERSION = 1;
+
+    private final static int HEADER_BYTES = 12;
+    private final static int MOBILITY = 0;
+    private final static int POTENTIAL_MOBILITY = 1;
+
+    private final static int[] TYPE_OFFSET = new int[Patterns.TYPES];
+    private final static int FEATURES_OFFSET;
+    private final static int STAGE_SIZE;
+
+    static {
+        int offset = 0;
+        for (int type = 0; type < Patterns.TYPES; type++) {
+            TYPE_OFFSET[type] = offset;
+            offset += Patterns.TYPE_CONFIGURATIONS[type];
+        }
+        FEATURES_OFFSET = offset;
+        STAGE_SIZE = offset + 2;
+    }
+
+    private final ByteBuffer buffer;
+    private final ShortBuffer weights;
+    private final int stages;
+
+    private PatternWeights(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+            throw new IOException("not a pattern weights file");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("unsupported pattern weights version " + buffer.getInt(4));
+
+        this.stages = buffer.getInt(8);
+        if (stages <= 0 || buffer.capacity() != HEADER_BYTES + 2L * STAGE_SIZE * stages)
+            throw new IOException("pattern weights file has a wrong size");
+
+        this.buffer = buffer;
+        this.weights = buffer.position(HEADER_BYTES).slice().asShortBuffer();
+    }
+
+    public static PatternWeights load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new PatternWeights(buffer);
+        }
+    }
+
+    /**
+     * Weights that add up to the SquareValuationPlayer.WEIGHTS sum, plus the
+     * mobility terms. A starting point until we have trained weights.
+     */
+    public static PatternWeights fromSquareWeights(int stages, int mobility, int potential_mobility) {
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 2 * STAGE_SIZE * stages);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, stages);
+        final ShortBuffer weights = buffer.position(HEADER_BYTES).slice().asShortBuffer();
+
+        // every square is valued by one pattern type only: edges by EDGE
+        // (the corners are on two edges, so they get half on each),
+        // the rest of the corner squares by CORNER
+        final int[][] square_values = new int[Patterns.TYPES][];
+        for (int type = 0; type < Patterns.TYPES; type++) {
+            final int[] squares = Patterns.INSTANCES[firstInstance(type)];
+            square_values[type] = new int[squares.length];
+
+            for (int k = 0; k < squares.length; k++) {
+                final int weight = SquareValuationPlayer.WEIGHTS[squares[k]];
+                final boolean on_edge = IsOnEdge(squares[k]);
+
+                if (type == Patterns.EDGE)
+                    square_values[type][k] = IsCorner(squares[k]) ? weight / 2 : weight;
+                else if (type == Patterns.CORNER && !on_edge)
+                    square_values[type][k] = weight;
+            }
+        }
+
+        for (int stage = 0; stage < stages; stage++) {
+            final int base = stage * STAGE_SIZE;
+
+            for (int type = 0; type < Patterns.TYPES; type++) {
+                for (int index = 0; index < Patterns.TYPE_CONFIGURATIONS[type]; index++) {
+                    int value = 0;
+                    int rest = index;
+                    for (int k = square_values[type].length - 1; k >= 0; k--) {
+                        final int digit = rest % 3;
+                        rest /= 3;
+                        if (digit == 1)
+                            value += square_values[type][k];
+                        else if (digit == 2)
+                            value -= square_values[type][k];
+                    }
+                    weights.put(base + TYPE_OFFSET[type] + index, (short) value);
+                }
+            }
+            weights.put(base + FEATURES_OFFSET + MOBILITY, (short) mobility);
+            weights.put(base + FEATURES_OFFSET + POTENTIAL_MOBILITY, (short) potential_mobility);
+        }
+
+        try {
+            return new PatternWeights(buffer.position(0));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int firstInstance(int type) {
+        for (int i = 0; i < Patterns.INSTANCE_TYPE.length; i++)
+            if (Patterns.INSTANCE_TYPE[i] == type)
+                return i;
+        throw new IllegalArgumentException("no instance of pattern type " + type);
+    }
+
+    private static boolean IsOnEdge(int square) {
+        final int row = square / 8;
+        final int col = square % 8;
+        return row == 0 || row == 7 || col == 0 || col == 7;
+    }
+
+    private static boolean IsCorner(int square) {
+        return square == 0 || square == 7 || square == 56 || square == 63;
+    }
+
+    public void writeTo(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer data = buffer.duplicate().position(0);
+            while (data.hasRemaining())
+                channel.write(data);
+        }
+    }
+
+    public int getStages() {
+        return stages;
+    }
+
+    /** @return the stage for a board with the given number of discs */
+    public int stage(final int discs) {
+        return (discs - 4) * stages / (Position.FIELDS - 3);
+    }
+
+    public int weight(final int stage, final int type, final int index) {
+        return weights.get(stage * STAGE_SIZE + TYPE_OFFSET[type] + index);
+    }
+
+    public int mobility(final int stage) {
+        return weights.get(stage * STAGE_SIZE + FEATURES_OFFSET + MOBILITY);
+    }
+
+    public int potentialMobility(final int stage) {
+        return weights.get(stage * STAGE_SIZE + FEATURES_OFFSET + POTENTIAL_MOBILITY);
+    }
+}
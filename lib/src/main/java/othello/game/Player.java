@@ -4,8 +4,26 @@ import othello.*;
 
 import java.util.List;
 
+/*
+    A player picks one of the legal moves of the position.
+
+    The engine works with the moves as a bitboard (see Bitboard.java) and
+    the move as a square index, which costs no allocation; the players
+    here implement that one and the List<Field> version converts. A player
+    that only has the List<Field> version still works through the default
+    method, at the cost of the conversion.
+*/
+
 public interface Player {
     String getName();
 
     Field bestMove(Position pos, List<Field> moves);
+
+    /**
+     * @param moves bitboard of the legal moves, not empty
+     * @return index of the chosen square, one of the moves
+     */
+    default int bestMove(Position pos, long moves) {
+        return bestMove(pos, Bitboard.toFields(moves)).toIndex();
+    }
 }
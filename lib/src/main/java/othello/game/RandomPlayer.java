@@ -17,11 +17,11 @@ public class RandomPlayer implements Player {
     }
 
     public Field bestMove(Position pos, List<Field> moves) {
-        return getRandomElement(moves);
+        return Field.fromIndex(bestMove(pos, Bitboard.fromFields(moves)));
     }
 
-    private static Field getRandomElement(List<Field> list) {
+    public int bestMove(Position pos, long moves) {
         Random rand = new Random();
-        return list.get(rand.nextInt(list.size()));
+        return Bitboard.nth(moves, rand.nextInt(Bitboard.count(moves)));
     }
 }
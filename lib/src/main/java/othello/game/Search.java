@@ -0,0 +1,454 @@
+package othello.game;
+
+import othello.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+    Principal variation search (negascout) with iterative deepening.
+
+    Results of inner nodes go to a transposition table, which can be shared
+    with other searches. Its best move is tried first, and its score ends
+    the search of a node when it was searched at least as deep as needed.
+
+    Several searches of the same position sharing one table is the Lazy SMP
+    scheme used by ParallelSearch. Helpers (thread_index > 0) start with a
+    rotated root move order and odd helpers skip the first iteration, so the
+    threads don't all search the same subtrees in lockstep.
+
+    The search makes and unmakes moves on its own copy of the position.
+    Every iteration starts with the best move of the previous one, so when
+    the deadline hits in the middle of an iteration the moves searched so
+    far are still comparable and the best of them can be returned.
+
+    analyze is the multi-PV mode: the root window is bounded by the score
+    of the k-th best move rather than the best, so the k best moves get
+    exact scores, and every completed iteration is reported with their
+    principal variations. It costs more nodes than finding one best move,
+    the more the larger k is.
+
+    A Search runs once: the deadline starts with the constructor, stop() is
+    final and the statistics cover the one run, so run and analyze throw
+    IllegalStateException when called again. Searches of the same position
+    reuse the table rather than the Search.
+*/
+
+public class Search {
+    final static int WIN_EVAL = 10000;
+    final static int LOSS_EVAL = -10000;
+    final static int INFINITY = 100000;
+
+    // how often (in nodes) we look at the clock
+    private final static int CHECK_INTERVAL_MASK = 1023;
+
+    private final Position pos;
+    // pos is left in the middle of the tree when the deadline hits, this one isn't touched
+    private final Position root;
+    private final TranspositionTable tt;
+    private final Evaluator evaluator;
+    private final long deadline;
+    private final int thread_index;
+    private volatile boolean stopped = false;
+    private boolean started = false;
+
+    private long nodes = 0;
+    private int ply = 0;
+
+    private final MoveOrdering ordering;
+
+    // see SearchStats
+    private long tt_probes = 0;
+    private long tt_hits = 0;
+    private long tt_cutoffs = 0;
+    private long inner_nodes = 0;
+    private long cutoffs = 0;
+    private long first_move_cutoffs = 0;
+    private final List<SearchStats.Iteration> iterations = new ArrayList<>();
+
+    // root moves, the best one from the last iteration goes first
+    private final int[] root_moves = new int[Position.FIELDS];
+    private final int[] root_scores = new int[Position.FIELDS];
+    private int root_move_count = 0;
+
+    /** @param time_limit_ms wall-clock budget, 0 means no limit */
+    public Search(final Position pos, final long time_limit_ms, final TranspositionTable tt,
+                  final Evaluator evaluator, final int thread_index, final MoveOrdering ordering) {
+        this.pos = pos.copy();
+        this.root = pos.copy();
+        this.tt = tt;
+        this.evaluator = evaluator;
+        this.thread_index = thread_index;
+        this.ordering = ordering;
+        this.deadline = time_limit_ms > 0
+            ? System.nanoTime() + time_limit_ms * 1_000_000
+            : Long.MAX_VALUE;
+    }
+
+    public Search(final Position pos, final long time_limit_ms, final TranspositionTable tt,
+                  final Evaluator evaluator, final int thread_index) {
+        this(pos, time_limit_ms, tt, evaluator, thread_index, new MoveOrdering());
+    }
+
+    public Search(final Position pos, final long time_limit_ms, final TranspositionTable tt) {
+        this(pos, time_limit_ms, tt, Evaluator.SQUARE_WEIGHTS, 0);
+    }
+
+    public Search(final Position pos, final long time_limit_ms) {
+        this(pos, time_limit_ms, new TranspositionTable());
+    }
+
+    /** asks the search to return as soon as possible, safe to call from other threads */
+    public void stop() {
+        stopped = true;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public SearchResult run(final int max_depth) {
+        return analyze(max_depth, 1, null);
+    }
+
+    /**
+     * Searches for the best `lines` moves, all with exact scores.
+     *
+     * @param listener gets the best moves after every completed iteration,
+     *     on the searching thread; may be null
+     * @return the best move, like run
+     * @throws IllegalStateException if this Search already ran
+     */
+    public SearchResult analyze(final int max_depth, final int lines, final Consumer<Analysis> listener) {
+        assert lines >= 1;
+        if (started)
+            throw new IllegalStateException("a Search runs only once");
+        started = true;
+
+        final long start = System.nanoTime();
+
+        for (long moves = pos.legalMovesBitboard(); moves != 0; moves &= moves - 1) {
+            root_moves[root_move_count++] = Long.numberOfTrailingZeros(moves);
+        }
+
+        if (root_move_count == 0) {
+            return new SearchResult(null, 0, 0, 0, 0);
+        }
+
+        // a warm table may remember the best move from an earlier search
+        final long root_entry = tt.probe(pos.getHash());
+        if (root_entry != TranspositionTable.MISS) {
+            for (int i = 0; i < root_move_count; i++) {
+                if (root_moves[i] == TranspositionTable.move(root_entry)) {
+                    moveToFront(i);
+                    break;
+                }
+            }
+        }
+
+        for (int i = 0; i < thread_index % root_move_count; i++) {
+            moveToFront(root_move_count - 1);
+        }
+
+        // something legal to fall back on if not even depth 1 completes
+        int best_move = root_moves[0];
+        int best_score = -INFINITY;
+        int completed_depth = 0;
+
+        final int empties = Bitboard.count(~(pos.getOwnBitboard() | pos.getOpponentBitboard()));
+
+        final int first_depth = Math.min(max_depth, 1 + thread_index % 2);
+
+        for (int depth = first_depth; depth <= max_depth; depth++) {
+            // a move has to beat alpha to be one of the best `lines` moves so far
+            int alpha = -INFINITY;
+            int iteration_best = -1;
+            int iteration_score = -INFINITY;
+
+            try {
+                for (int i = 0; i < root_move_count; i++) {
+                    final int move = root_moves[i];
+                    final long flipped = pos.makeMove(move);
+                    ply++;
+                    int score;
+                    if (i == 0 || alpha == -INFINITY) {
+                        score = -pvs(depth - 1, -INFINITY, -alpha);
+                    } else {
+                        score = -pvs(depth - 1, -alpha - 1, -alpha);
+                        if (score > alpha)
+                            score = -pvs(depth - 1, -INFINITY, -alpha);
+                    }
+                    ply--;
+                    pos.unmakeMove(move, flipped);
+
+                    // scores not above alpha are only upper bounds
+                    root_scores[i] = score;
+                    if (score > iteration_score) {
+                        iteration_score = score;
+                        iteration_best = i;
+                    }
+                    if (score > alpha)
+                        alpha = lines == 1 ? score : lineBound(i + 1, lines);
+                }
+            } catch (SearchTimeout timeout) {
+                // the first root move is last iteration's best, any move
+                // that beat it so far was searched to the full depth
+                if (iteration_best > 0) {
+                    best_move = root_moves[iteration_best];
+                    best_score = iteration_score;
+                }
+                break;
+            }
+
+            best_move = root_moves[iteration_best];
+            best_score = iteration_score;
+            completed_depth = depth;
+            if (lines == 1)
+                moveToFront(iteration_best);
+            else
+                sortRootMoves();
+            iterations.add(new SearchStats.Iteration(depth, best_score, Field.fromIndex(best_move), nodes,
+                (System.nanoTime() - start) / 1_000_000));
+            tt.store(pos.getHash(), depth, TranspositionTable.EXACT, best_score, best_move);
+
+            if (listener != null)
+                listener.accept(analysis(depth, Math.min(lines, root_move_count), start));
+
+            // deeper iterations can't change a proven result
+            if (depth >= empties || (lines == 1 && Math.abs(best_score) >= WIN_EVAL))
+                break;
+        }
+
+        final long time_ms = (System.nanoTime() - start) / 1_000_000;
+        final SearchStats stats = new SearchStats(nodes, tt_probes, tt_hits, tt_cutoffs,
+            inner_nodes, cutoffs, first_move_cutoffs, time_ms, iterations);
+        return new SearchResult(Field.fromIndex(best_move), best_score, completed_depth, nodes, time_ms,
+            principalVariation(best_move, Math.max(1, completed_depth)), stats);
+    }
+
+    // the best move followed by the best moves stored in the table
+    private List<Field> principalVariation(final int first_move, final int max_length) {
+        final List<Field> pv = new ArrayList<>();
+        final Position line = root.copy();
+
+        int move = first_move;
+        while (true) {
+            pv.add(Field.fromIndex(move));
+            line.makeMove(move);
+            if (pv.size() >= max_length)
+                break;
+
+            if (!line.hasLegalMove()) {
+                if (line.isTerminal())
+                    break;
+                pv.add(null);
+                line.makePass();
+            }
+
+            final long entry = tt.probe(line.getHash());
+            if (entry == TranspositionTable.MISS)
+                break;
+            move = TranspositionTable.move(entry);
+            if (move == TranspositionTable.NO_MOVE || !Bitboard.contains(line.legalMovesBitboard(), move))
+                break;
+        }
+        return pv;
+    }
+
+    // the lines-th best of the first `count` root scores, or -INFINITY while there are fewer
+    private int lineBound(final int count, final int lines) {
+        if (count < lines)
+            return -INFINITY;
+
+        final int[] best = new int[lines];
+        Arrays.fill(best, -INFINITY);
+        for (int i = 0; i < count; i++) {
+            int k = lines - 1;
+            if (root_scores[i] <= best[k])
+                continue;
+            for (; k > 0 && best[k - 1] < root_scores[i]; k--)
+                best[k] = best[k - 1];
+            best[k] = root_scores[i];
+        }
+        return best[lines - 1];
+    }
+
+    // best score first, stable so equal moves keep their order
+    private void sortRootMoves() {
+        for (int i = 1; i < root_move_count; i++) {
+            final int move = root_moves[i];
+            final int score = root_scores[i];
+            int j = i;
+            for (; j > 0 && root_scores[j - 1] < score; j--) {
+                root_moves[j] = root_moves[j - 1];
+                root_scores[j] = root_scores[j - 1];
+            }
+            root_moves[j] = move;
+            root_scores[j] = score;
+        }
+    }
+
+    // the first `lines` root moves, sorted after a completed iteration
+    private Analysis analysis(final int depth, final int lines, final long start) {
+        final List<Analysis.Line> result = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            result.add(new Analysis.Line(Field.fromIndex(root_moves[i]), root_scores[i],
+                principalVariation(root_moves[i], depth)));
+        }
+        return new Analysis(depth, nodes, (System.nanoTime() - start) / 1_000_000, result);
+    }
+
+    private void moveToFront(final int index) {
+        final int move = root_moves[index];
+        System.arraycopy(root_moves, 0, root_moves, 1, index);
+        root_moves[0] = move;
+    }
+
+    private int pvs(final int depth, int alpha, final int beta) {
+        if ((++nodes & CHECK_INTERVAL_MASK) == 0)
+            checkTime();
+
+        final long moves = pos.legalMovesBitboard();
+
+        if (moves == 0) {
+            if (!Bitboard.hasLegalMove(pos.getOpponentBitboard(), pos.getOwnBitboard()))
+                return finalScore(pos);
+
+            // a pass doesn't use up the depth, it can't repeat forever
+            pos.makePass();
+            ply++;
+            final int score = -pvs(depth, -beta, -alpha);
+            ply--;
+            pos.makePass();
+            return score;
+        }
+
+        if (depth == 0) {
+            return evaluator.evaluate(pos);
+        }
+
+        final long key = pos.getHash();
+        final long entry = tt.probe(key);
+        int tt_move = TranspositionTable.NO_MOVE;
+        tt_probes++;
+
+        if (entry != TranspositionTable.MISS) {
+            tt_move = TranspositionTable.move(entry);
+            tt_hits++;
+
+            if (TranspositionTable.depth(entry) >= depth) {
+                final int score = TranspositionTable.score(entry);
+                final int bound = TranspositionTable.bound(entry);
+
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    tt_cutoffs++;
+                    return score;
+                }
+            }
+        }
+
+        final int original_alpha = alpha;
+        int best_score = -INFINITY;
+        int best_move = TranspositionTable.NO_MOVE;
+
+        // the move from the table goes first, the others are sorted only if it doesn't cut off
+        final boolean tt_move_first = tt_move != TranspositionTable.NO_MOVE && Bitboard.contains(moves, tt_move);
+        int move = tt_move_first ? tt_move : TranspositionTable.NO_MOVE;
+        int[] sorted = null;
+        int count = 0;
+        int next = 0;
+        int move_number = 0;
+        inner_nodes++;
+
+        while (true) {
+            if (move == TranspositionTable.NO_MOVE) {
+                if (sorted == null) {
+                    final long rest = tt_move_first ? moves & ~Bitboard.bit(tt_move) : moves;
+                    count = ordering.sort(ply, pos.getPlayerToMove(), pos.getOwnBitboard(), pos.getOpponentBitboard(),
+                        rest, depth);
+                    sorted = ordering.moves(ply);
+                }
+                if (next == count)
+                    break;
+                move = sorted[next++];
+            }
+            move_number++;
+
+            final long flipped = pos.makeMove(move);
+            ply++;
+            int score;
+            if (move_number == 1) {
+                score = -pvs(depth - 1, -beta, -alpha);
+            } else {
+                // null window search to prove the move is worse than the best so far
+                score = -pvs(depth - 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta)
+                    score = -pvs(depth - 1, -beta, -alpha);
+            }
+            ply--;
+            pos.unmakeMove(move, flipped);
+
+            if (score > best_score) {
+                best_score = score;
+                best_move = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        cutoffs++;
+                        if (move_number == 1)
+                            first_move_cutoffs++;
+                        ordering.cutoff(ply, pos.getPlayerToMove(), move, depth);
+                        break;
+                    }
+                }
+            }
+
+            move = TranspositionTable.NO_MOVE;
+        }
+
+        final int bound = best_score <= original_alpha ? TranspositionTable.UPPER
+            : best_score >= beta ? TranspositionTable.LOWER
+            : TranspositionTable.EXACT;
+        tt.store(key, depth, bound, best_score, best_move);
+
+        return best_score;
+    }
+
+    private void checkTime() {
+        if (stopped || System.nanoTime() > deadline) {
+            stopped = true;
+            throw SearchTimeout.INSTANCE;
+        }
+    }
+
+    /** @return the result of a finished game, from the perspective of the player to move */
+    static int finalScore(final Position pos) {
+        final int difference = Bitboard.count(pos.getOwnBitboard()) - Bitboard.count(pos.getOpponentBitboard());
+        if (difference > 0)
+            return WIN_EVAL + difference;
+        if (difference < 0)
+            return LOSS_EVAL + difference;
+        return 0;
+    }
+
+    static int evaluate(final Position pos) {
+        // kept up to date by makeMove
+        return pos.getSquareScore();
+    }
+
+    // thrown to unwind the search when the time is up, preallocated and
+    // without a stack trace since it's control flow rather than an error
+    private static class SearchTimeout extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        static final SearchTimeout INSTANCE = new SearchTimeout();
+
+        private SearchTimeout() {
+            super("search timeout", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package othello.game;
+
+import othello.Field;
+
+import java.util.Collections;
+import java.util.List;
+
+public class SearchResult {
+    final public Field move; /* null if the player has to pass */
+    final public int score;
+    final public int depth;
+    final public long nodes;
+    final public long time_ms;
+    final public List<Field> pv; /* expected line starting with move, null for a pass */
+    final public SearchStats stats; /* null if the search doesn't collect them */
+
+    public SearchResult(Field move, int score, int depth, long nodes, long time_ms,
+                        List<Field> pv, SearchStats stats) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.time_ms = time_ms;
+        this.pv = pv;
+        this.stats = stats;
+    }
+
+    public SearchResult(Field move, int score, int depth, long nodes, long time_ms) {
+        this(move, score, depth, nodes, time_ms,
+            move == null ? Collections.<Field>emptyList() : Collections.singletonList(move), null);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("move=%s score=%d depth=%d nodes=%d time=%dms pv=%s",
+            move, score, depth, nodes, time_ms, pv);
+    }
+}
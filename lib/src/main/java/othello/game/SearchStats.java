@@ -0,0 +1,98 @@
+package othello.game;
+
+import othello.Field;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+    What a search did, for tuning and monitoring.
+
+    tt_hit_rate         share of the table probes that found the position
+    cutoff_rate         share of the inner nodes that ended with a beta cutoff
+    first_move_cutoff_rate
+                        share of the cutoffs caused by the first move tried,
+                        a measure of the move ordering (1.0 is perfect)
+
+    For a parallel search the counters are summed over the threads, and the
+    iterations are those of the main thread.
+*/
+
+public class SearchStats {
+    final public long nodes;
+    final public long tt_probes;
+    final public long tt_hits;
+    final public long tt_cutoffs;
+    final public long inner_nodes;
+    final public long cutoffs;
+    final public long first_move_cutoffs;
+    final public long time_ms;
+    final public List<Iteration> iterations;
+
+    final public long nps;
+    final public double tt_hit_rate;
+    final public double cutoff_rate;
+    final public double first_move_cutoff_rate;
+
+    public SearchStats(long nodes, long tt_probes, long tt_hits, long tt_cutoffs,
+                       long inner_nodes, long cutoffs, long first_move_cutoffs,
+                       long time_ms, List<Iteration> iterations) {
+        this.nodes = nodes;
+        this.tt_probes = tt_probes;
+        this.tt_hits = tt_hits;
+        this.tt_cutoffs = tt_cutoffs;
+        this.inner_nodes = inner_nodes;
+        this.cutoffs = cutoffs;
+        this.first_move_cutoffs = first_move_cutoffs;
+        this.time_ms = time_ms;
+        this.iterations = Collections.unmodifiableList(iterations);
+
+        this.nps = nodes * 1000 / Math.max(1, time_ms);
+        this.tt_hit_rate = Ratio(tt_hits, tt_probes);
+        this.cutoff_rate = Ratio(cutoffs, inner_nodes);
+        this.first_move_cutoff_rate = Ratio(first_move_cutoffs, cutoffs);
+    }
+
+    /** @return the counters of all the searches added up, with the iterations of the first one */
+    public static SearchStats Sum(List<SearchStats> all, long time_ms) {
+        long nodes = 0, tt_probes = 0, tt_hits = 0, tt_cutoffs = 0, inner_nodes = 0, cutoffs = 0, first_move_cutoffs = 0;
+        for (SearchStats stats : all) {
+            nodes += stats.nodes;
+            tt_probes += stats.tt_probes;
+            tt_hits += stats.tt_hits;
+            tt_cutoffs += stats.tt_cutoffs;
+            inner_nodes += stats.inner_nodes;
+            cutoffs += stats.cutoffs;
+            first_move_cutoffs += stats.first_move_cutoffs;
+        }
+        return new SearchStats(nodes, tt_probes, tt_hits, tt_cutoffs, inner_nodes, cutoffs, first_move_cutoffs,
+            time_ms, all.get(0).iterations);
+    }
+
+    private static double Ratio(long part, long whole) {
+        return whole == 0 ? 0 : (double) part / whole;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("nodes=%d nps=%d tt_hits=%.1f%% cutoffs=%.1f%% first_move_cutoffs=%.1f%%",
+            nodes, nps, 100 * tt_hit_rate, 100 * cutoff_rate, 100 * first_move_cutoff_rate);
+    }
+
+    /** a completed iteration of iterative deepening */
+    public static class Iteration {
+        final public int depth;
+        final public int score;
+        final public Field move;
+        final public long nodes; /* total since the start of the search */
+        final public long time_ms; /* since the start of the search */
+
+        public Iteration(int depth, int score, Field move, long nodes, long time_ms) {
+            this.depth = depth;
+            this.score = score;
+            this.move = move;
+            this.nodes = nodes;
+            this.time_ms = time_ms;
+        }
+    }
+}
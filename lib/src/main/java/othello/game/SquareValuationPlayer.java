@@ -5,16 +5,7 @@ import othello.*;
 import java.util.List;
 
 public class SquareValuationPlayer implements Player {
-    final public static int[] WEIGHTS = new int[] {
-        100, -20, 10, 30, 30, 10, -20, 100,
-        -20, -50,  0,  0,  0,  0, -50, -20,
-         10,   0,  0,  0,  0,  0,   0,  10,
-         30,   0,  0,  0,  0,  0,   0,  30,
-         30,   0,  0,  0,  0,  0,   0,  30,
-         10,   0,  0,  0,  0,  0,   0,  10,
-        -20, -50,  0,  0,  0,  0, -50, -20,
-        100, -20, 10, 30, 30, 10, -20, 100
-    };
+    final public static int[] WEIGHTS = SquareWeights.WEIGHTS;
 
     private String id;
 
@@ -27,18 +18,23 @@ public class SquareValuationPlayer implements Player {
     }
 
     public Field bestMove(Position pos, List<Field> moves) {
+        return Field.fromIndex(bestMove(pos, Bitboard.fromFields(moves)));
+    }
+
+    public int bestMove(Position pos, long moves) {
         int best_evaluation = Integer.MIN_VALUE;
-        Field best_move = null;
+        int best_move = -1;
 
-        for (Field move : moves) {
-            int evaluation = WEIGHTS[move.toIndex()];
+        for (long rest = moves; rest != 0; rest &= rest - 1) {
+            final int move = Long.numberOfTrailingZeros(rest);
+            int evaluation = WEIGHTS[move];
             if (evaluation > best_evaluation) {
                 best_evaluation = evaluation;
                 best_move = move;
             }
         }
 
-        assert best_move != null;
+        assert best_move >= 0;
         return best_move;
     }
 }
@@ -0,0 +1,151 @@
+package othello.game;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/*
+    Fixed-size hash table of search results, shared by any number of search
+    threads without locks.
+
+    Every entry takes two longs: the packed data and the position key XOR-ed
+    with the data. A reader accepts an entry only if the two agree, so an
+    entry torn by two threads writing at the same time looks like a miss
+    instead of handing out a score that belongs to another position.
+
+    Entries live in buckets of two. A new result replaces the entry for the
+    same key if there is one, otherwise the entry left over from an older
+    search, otherwise the one searched to the smaller depth.
+
+    Data layout (bits):
+        0-6     best move (square index, NO_MOVE if unknown)
+        7-8     bound (LOWER, UPPER or EXACT)
+        9-16    depth
+        17-24   generation (which search stored it)
+        32-63   score
+*/
+
+public class TranspositionTable {
+    public final static int NO_MOVE = 64;
+
+    public final static int LOWER = 1;
+    public final static int UPPER = 2;
+    public final static int EXACT = 3;
+
+    /** returned by probe when the position is not in the table */
+    public final static long MISS = 0;
+
+    public final static int DEFAULT_SIZE_BITS = 18;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int BUCKET_SIZE = 2;
+
+    private final long[] table;
+    private final int bucket_mask;
+    private volatile int generation = 0;
+
+    /** @param size_bits log2 of the number of entries */
+    public TranspositionTable(int size_bits) {
+        assert size_bits >= 1 && size_bits <= 28;
+
+        final int entries = 1 << size_bits;
+        this.table = new long[2 * entries];
+        this.bucket_mask = entries / BUCKET_SIZE - 1;
+    }
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_BITS);
+    }
+
+    public int getSize() {
+        return table.length / 2;
+    }
+
+    /** marks entries of the previous searches as the first to be replaced */
+    public void newSearch() {
+        generation = (generation + 1) & 0xff;
+    }
+
+    public void clear() {
+        for (int i = 0; i < table.length; i++)
+            SLOTS.setOpaque(table, i, 0L);
+    }
+
+    /** @return packed entry for the key, or MISS */
+    public long probe(final long key) {
+        final int first = bucketStart(key);
+
+        for (int i = first; i < first + 2 * BUCKET_SIZE; i += 2) {
+            final long data = (long) SLOTS.getOpaque(table, i + 1);
+            final long check = (long) SLOTS.getOpaque(table, i);
+            if (data != MISS && (check ^ data) == key)
+                return data;
+        }
+        return MISS;
+    }
+
+    public void store(final long key, final int depth, final int bound, final int score, final int move) {
+        assert bound == LOWER || bound == UPPER || bound == EXACT;
+        assert move >= 0 && move <= NO_MOVE;
+
+        final int gen = generation;
+        final int first = bucketStart(key);
+
+        int victim = -1;
+        int victim_priority = Integer.MAX_VALUE;
+
+        for (int i = first; i < first + 2 * BUCKET_SIZE; i += 2) {
+            final long data = (long) SLOTS.getOpaque(table, i + 1);
+            final long check = (long) SLOTS.getOpaque(table, i);
+
+            if (data == MISS || (check ^ data) == key) {
+                victim = i;
+                break;
+            }
+
+            // entries from the current search are worth more than old ones
+            final int priority = depth(data) + (generation(data) == gen ? 256 : 0);
+            if (priority < victim_priority) {
+                victim = i;
+                victim_priority = priority;
+            }
+        }
+
+        final long data = pack(depth, bound, score, move, gen);
+        SLOTS.setOpaque(table, victim + 1, data);
+        SLOTS.setOpaque(table, victim, key ^ data);
+    }
+
+    private int bucketStart(final long key) {
+        // the low bits of the key pick the bucket, two longs per entry
+        return ((int) key & bucket_mask) * 2 * BUCKET_SIZE;
+    }
+
+    static long pack(int depth, int bound, int score, int move, int generation) {
+        return (long) move
+            | (long) bound << 7
+            | (long) (depth & 0xff) << 9
+            | (long) (generation & 0xff) << 17
+            | (long) score << 32;
+    }
+
+    public static int move(final long data) {
+        return (int) (data & 0x7f);
+    }
+
+    public static int bound(final long data) {
+        return (int) (data >>> 7) & 0x3;
+    }
+
+    public static int depth(final long data) {
+        return (int) (data >>> 9) & 0xff;
+    }
+
+    static int generation(final long data) {
+        return (int) (data >>> 17) & 0xff;
+    }
+
+    public static int score(final long data) {
+        return (int) (data >> 32);
+    }
+}
@@ -0,0 +1,385 @@
+package othello
+
+import static othello.Field.*
+import othello.game.Analysis
+import othello.game.AlphaBetaPlayer
+import othello.game.Evaluator
+import othello.game.MinimaxPlayer
+import othello.game.MoveOrdering
+import othello.game.ParallelSearch
+import othello.game.Search
+import othello.game.SearchResult
+import othello.game.TranspositionTable
+
+import java.util.concurrent.ForkJoinPool
+
+import spock.lang.*
+
+class AlphaBetaSpec extends Specification {
+
+    static Position randomOpening(long seed, int plies) {
+        def random = new Random(seed)
+        def pos = Position.initialPosition()
+        plies.times {
+            def moves = pos.legalMoves()
+            pos.makeMove(moves[random.nextInt(moves.size())])
+        }
+        return pos
+    }
+
+    // leaf count without passes, just like MinimaxPlayer's tree
+    static long leafCount(Position pos, int depth) {
+        if (depth == 0) {
+            return 1
+        }
+        def moves = pos.legalMoves()
+        if (moves.isEmpty()) {
+            return 1
+        }
+        return moves.sum { leafCount(pos.applyMove(it), depth - 1) }
+    }
+
+    def "alpha-beta finds the same score as minimax"() {
+        given:
+            def pos = randomOpening(seed, 8)
+            def minimax = new MinimaxPlayer("test", depth)
+        when:
+            def result = new Search(pos, 0).run(depth)
+        then:
+            result.depth == depth
+            result.score == minimax.eval(pos.copy(), depth)
+        where:
+            [seed, depth] << [(1..5), (1..4)].combinations()
+    }
+
+    def "alpha-beta visits fewer nodes than it would without pruning"() {
+        given:
+            def pos = randomOpening(3, 10)
+        when:
+            def result = new Search(pos, 0).run(6)
+        then:
+            result.depth == 6
+            result.nodes < leafCount(pos, 6)
+    }
+
+    def "search doesn't change the position it was given"() {
+        given:
+            def pos = randomOpening(7, 12)
+            def before = pos.toString()
+        when:
+            new AlphaBetaPlayer("test", 4).bestMove(pos, pos.legalMoves())
+        then:
+            pos.toString() == before
+    }
+
+    def "the winning move is found"() {
+        given:
+            def pos_str = """\
+            . O O O O O O X
+            O O O O O O O O
+            O O O O O O O O
+            O O O O O O O O
+            O O O O O O O O
+            O O O O O O O O
+            O O O O O O O O
+            X O O O O O O .
+            """
+            def pos = Position.fromString(pos_str, Color.X)
+        when:
+            def result = new AlphaBetaPlayer("test", 5).search(pos)
+        then:
+            result.move == A1
+    }
+
+    def "a legal move is returned when the time is up"() {
+        given:
+            def pos = randomOpening(11, 6)
+        when:
+            def result = new AlphaBetaPlayer("test", 60, 20).search(pos)
+        then:
+            result.move in pos.legalMoves()
+            result.depth < 60
+            result.time_ms < 1000
+    }
+
+    def "a stopped player returns a legal move right away"() {
+        given:
+            def pos = randomOpening(11, 6)
+            def player = new AlphaBetaPlayer("test", 60, 0)
+            def result = null
+            def thread = Thread.start { result = player.search(pos) }
+        when:
+            Thread.sleep(50)
+            player.stop()
+            thread.join(2000)
+        then:
+            !thread.alive
+            result.move in pos.legalMoves()
+            result.depth < 60
+    }
+
+    def "a player stopped before the search returns a legal move right away"() {
+        given:
+            def pos = randomOpening(11, 6)
+            // no time limit, only the stop ends the search
+            def player = new AlphaBetaPlayer("test", 60, 0)
+        when:
+            player.stop()
+            def first = player.search(pos)
+            def second = player.search(pos)
+        then:
+            first.move in pos.legalMoves()
+            first.depth < 60
+            // it stays stopped
+            second.depth < 60
+    }
+
+    def "a parallel search stopped before the run returns right away"() {
+        given:
+            def pos = randomOpening(5, 10)
+            def pool = new ForkJoinPool(2)
+            def search = new ParallelSearch(pool)
+        when:
+            search.stop()
+            def result = search.run(pos, 60, 0, new TranspositionTable())
+        then:
+            result.move in pos.legalMoves()
+            result.depth < 60
+        cleanup:
+            pool.shutdown()
+    }
+
+    def "a stopped parallel player returns a legal move right away"() {
+        given:
+            def pos = randomOpening(5, 10)
+            def pool = new ForkJoinPool(2)
+            def player = new AlphaBetaPlayer("test", 60, 0, new TranspositionTable(), pool)
+            def result = null
+            def thread = Thread.start { result = player.search(pos) }
+        when:
+            Thread.sleep(50)
+            player.stop()
+            thread.join(2000)
+        then:
+            !thread.alive
+            result.move in pos.legalMoves()
+        cleanup:
+            pool.shutdown()
+    }
+
+    def "pass is reported as no move"() {
+        given:
+            def pos_str = """\
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . O . . X . . .
+            . O . X O X . .
+            . O . . X . . .
+            . . . . . . . .
+            . . . . . . . .
+            """
+            def pos = Position.fromString(pos_str, Color.X)
+        expect:
+            new AlphaBetaPlayer("test", 3).search(pos).move == null
+    }
+
+    def "parallel search completes the requested depth with a legal move"() {
+        given:
+            def pos = randomOpening(5, 10)
+            def pool = new ForkJoinPool(4)
+        when:
+            def result = new ParallelSearch(pool).run(pos, 6, 0, new TranspositionTable())
+        then:
+            result.depth == 6
+            result.move in pos.legalMoves()
+            // sharing the table with helpers must not change the minimax value
+            result.score == new Search(pos, 0).run(6).score
+        cleanup:
+            pool.shutdown()
+    }
+
+    //--------------------------------------------------------
+    // Statistics
+    //--------------------------------------------------------
+
+    def "the principal variation is a legal line starting with the best move"() {
+        given:
+            def pos = randomOpening(seed, 12)
+        when:
+            def result = new Search(pos, 0).run(6)
+            def line = pos.copy()
+            def legal = result.pv.every { move ->
+                if (move == null) {
+                    def pass_ok = line.legalMovesBitboard() == 0
+                    line.makePass()
+                    return pass_ok
+                }
+                def ok = move in line.legalMoves()
+                line.makeMove(move)
+                return ok
+            }
+        then:
+            result.pv[0] == result.move
+            result.pv.findAll { it != null }.size() <= 6
+            legal
+        where:
+            seed << (1..10)
+    }
+
+    def "the principal variation is legal when the search runs out of time"() {
+        given:
+            def pos = randomOpening(7, 10)
+        when:
+            def result = new Search(pos, 50).run(30)
+            def line = pos.copy()
+            def legal = result.pv.every { move ->
+                if (move == null) {
+                    line.makePass()
+                    return true
+                }
+                def ok = move in line.legalMoves()
+                line.makeMove(move)
+                return ok
+            }
+        then:
+            result.depth < 30
+            result.pv[0] == result.move
+            result.pv.size() > 1
+            legal
+    }
+
+    def "statistics cover every completed iteration"() {
+        given:
+            def pos = randomOpening(3, 10)
+        when:
+            def result = new Search(pos, 0).run(5)
+            def stats = result.stats
+        then:
+            stats.nodes == result.nodes
+            stats.iterations*.depth == [1, 2, 3, 4, 5]
+            stats.iterations[-1].move == result.move
+            stats.iterations[-1].score == result.score
+            stats.tt_hits <= stats.tt_probes
+            stats.first_move_cutoffs <= stats.cutoffs
+            stats.cutoffs <= stats.inner_nodes
+            stats.cutoff_rate > 0
+    }
+
+    def "a search runs only once"() {
+        given:
+            def pos = randomOpening(3, 10)
+            def search = new Search(pos, 0)
+            search.run(3)
+        when:
+            search.analyze(3, 2, null)
+        then:
+            thrown(IllegalStateException)
+    }
+
+    //--------------------------------------------------------
+    // Analysis
+    //--------------------------------------------------------
+
+    def "analysis finds the exact scores of the best moves"() {
+        given:
+            def pos = randomOpening(seed, 8)
+            def minimax = new MinimaxPlayer("test", depth)
+            def scores = pos.legalMoves().collectEntries { [it, -minimax.eval(pos.applyMove(it), depth - 1)] }
+            def analyses = []
+        when:
+            def result = new Search(pos, 0).analyze(depth, 3, { analyses << it })
+            def last = analyses.last()
+        then:
+            result.depth == depth
+            analyses*.depth == (1..depth).toList()
+            last.lines.size() == Math.min(3, scores.size())
+            last.lines*.score == scores.values().sort().reverse().take(3)
+            last.lines.every { scores[it.move] == it.score }
+            result.move == last.lines[0].move
+            result.score == last.lines[0].score
+        where:
+            [seed, depth] << [(1..5), (2..4)].combinations()
+    }
+
+    def "every line of the analysis is a legal line starting with its move"() {
+        given:
+            def pos = randomOpening(seed, 12)
+            Analysis analysis = null
+        when:
+            new Search(pos, 0).analyze(6, 4, { analysis = it })
+        then:
+            analysis.lines*.move.toSet().size() == analysis.lines.size()
+            analysis.lines.every { line ->
+                def replay = pos.copy()
+                line.pv[0] == line.move && line.pv.every { move ->
+                    if (move == null) {
+                        replay.makePass()
+                        return true
+                    }
+                    def legal = move in replay.legalMoves()
+                    replay.makeMove(move)
+                    legal
+                }
+            }
+            analysis.lines*.score == analysis.lines*.score.sort(false).reverse()
+        where:
+            seed << (1..5)
+    }
+
+    def "analysis of one line is a normal search"() {
+        given:
+            def pos = randomOpening(seed, 10)
+        when:
+            def normal = new Search(pos, 0).run(5)
+            def analyzed = new Search(pos, 0).analyze(5, 1, null)
+        then:
+            analyzed.move == normal.move
+            analyzed.score == normal.score
+            analyzed.nodes == normal.nodes
+        where:
+            seed << (1..5)
+    }
+
+    //--------------------------------------------------------
+    // Move ordering
+    //--------------------------------------------------------
+
+    static SearchResult searchWith(Position pos, int depth, boolean heuristics) {
+        new Search(pos, 0, new TranspositionTable(), Evaluator.SQUARE_WEIGHTS, 0, new MoveOrdering(heuristics)).run(depth)
+    }
+
+    def "move ordering doesn't change the score"() {
+        given:
+            def pos = randomOpening(seed, 16)
+        expect:
+            searchWith(pos, 6, true).score == searchWith(pos, 6, false).score
+        where:
+            seed << (1..10)
+    }
+
+    def "move ordering searches fewer nodes"() {
+        given:
+            def positions = (1..10).collect { randomOpening(it, 16) }
+        when:
+            def ordered = positions.sum { searchWith(it, 7, true).nodes }
+            def board_order = positions.sum { searchWith(it, 7, false).nodes }
+        then:
+            ordered < board_order * 0.7
+    }
+
+    def "the killer moves of a ply are sorted first"() {
+        given:
+            def pos = Position.initialPosition()
+            def ordering = new MoveOrdering()
+            def moves = pos.legalMovesBitboard()
+        when:
+            ordering.cutoff(1, pos.playerToMove, F5.toIndex(), 4)
+            ordering.cutoff(1, pos.playerToMove, C4.toIndex(), 4)
+            def count = ordering.sort(1, pos.playerToMove, pos.ownBitboard, pos.opponentBitboard, moves, 4)
+        then:
+            count == 4
+            ordering.moves(1)[0] == C4.toIndex()
+            ordering.moves(1)[1] == F5.toIndex()
+    }
+}
@@ -0,0 +1,184 @@
+package othello
+
+import static othello.Field.*
+
+import spock.lang.*
+
+class BitboardSpec extends Specification {
+
+    //--------------------------------------------------------
+    // Basic operations
+    //--------------------------------------------------------
+
+    def "bit index follows the field ordinal"() {
+        expect:
+            Bitboard.bit(A1) == 1L
+            Bitboard.bit(H1) == 1L << 7
+            Bitboard.bit(A2) == 1L << 8
+            Bitboard.bit(H8) == Long.MIN_VALUE
+    }
+
+    def "toFields and fromFields are inverse"() {
+        given:
+            def fields = [A1, D3, C4, H8]
+        expect:
+            Bitboard.toFields(Bitboard.fromFields(fields)) == fields
+    }
+
+    def "nth picks the squares in index order"() {
+        given:
+            def fields = [A1, D3, C4, H8]
+            def mask = Bitboard.fromFields(fields)
+        expect:
+            (0..<fields.size()).collect { Field.fromIndex(Bitboard.nth(mask, it)) } == fields
+            (0..<64).every { Field.fromRowCol(it.intdiv(8), it % 8) == Field.fromIndex(it) }
+    }
+
+    //--------------------------------------------------------
+    // Move generation
+    //--------------------------------------------------------
+
+    def "legal moves in the starting position"() {
+        given:
+            def pos = Position.initialPosition()
+        expect:
+            Bitboard.toFields(pos.legalMovesBitboard()) == [D3, C4, F5, E6]
+    }
+
+    def "lines don't wrap around the board edges"() {
+        given:
+            def pos_str = """\
+            . . . . . . O X
+            O . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            """
+            def pos = Position.fromString(pos_str, Color.X)
+        expect:
+            pos.legalMoves() == [F1]
+    }
+
+    def "flips cover all the directions"() {
+        given:
+            def pos_str = """\
+            X . . X . . X .
+            . O . O . O . .
+            . . O O O . . .
+            X O O . O O X .
+            . . O O O . . .
+            . O . O . O . .
+            X . . X . . X .
+            . . . . . . . .
+            """
+            def pos = Position.fromString(pos_str, Color.X)
+        when:
+            def flipped = Bitboard.flips(D4.toIndex(), pos.getOwnBitboard(), pos.getOpponentBitboard())
+        then:
+            Bitboard.count(flipped) == 16
+            Bitboard.toFields(flipped) == [B2, D2, F2, C3, D3, E3, B4, C4, E4, F4, C5, D5, E5, B6, D6, F6]
+    }
+
+    //--------------------------------------------------------
+    // Comparison with the square-by-square generator
+    //--------------------------------------------------------
+
+    def "bitboard move generation agrees with MoveGenerator in random games"() {
+        given:
+            def random = new Random(seed)
+            def pos = Position.initialPosition()
+            def mismatches = 0
+
+        when:
+            while (!pos.generateStatus().isGameFinished()) {
+                def expected = new MoveGenerator(pos.getPlayerToMove(), pos.board).legalMoves()
+                def moves = pos.legalMoves()
+                if (moves != expected) {
+                    mismatches++
+                }
+
+                if (moves.isEmpty()) {
+                    pos.makePass()
+                    continue
+                }
+
+                def move = moves[random.nextInt(moves.size())]
+                def to_flip = new MoveGenerator(pos.getPlayerToMove(), pos.board).makeMove(move)
+                def flipped = Bitboard.flips(move.toIndex(), pos.getOwnBitboard(), pos.getOpponentBitboard())
+                if (Bitboard.fromFields(to_flip.collect { Field.values()[it] }) != flipped) {
+                    mismatches++
+                }
+                pos.makeMove(move)
+            }
+
+        then:
+            mismatches == 0
+
+        where:
+            seed << (1..20)
+    }
+
+    //--------------------------------------------------------
+    // Flip implementations
+    //--------------------------------------------------------
+
+    def "table, shift and Kogge-Stone flips agree on random boards"() {
+        given:
+            def random = new Random(seed)
+            def mismatches = 0
+
+        when:
+            1000.times {
+                def own = random.nextLong() & random.nextLong()
+                def opp = random.nextLong() & ~own
+                def empty = ~(own | opp)
+                for (long rest = empty; rest != 0; rest &= rest - 1) {
+                    def square = Long.numberOfTrailingZeros(rest)
+                    def expected = Bitboard.flipsByShifts(square, own, opp)
+                    if (FlipTables.flipsFor(square, own, opp) != expected
+                            || Bitboard.flipsKoggeStone(square, own, opp) != expected) {
+                        mismatches++
+                    }
+                }
+            }
+
+        then:
+            mismatches == 0
+
+        where:
+            seed << (1..5)
+    }
+
+    def "table flips cover all the directions and don't wrap around"() {
+        given:
+            def pos_str = """\
+            X . . X . . X .
+            . O . O . O . .
+            . . O O O . . .
+            X O O . O O X .
+            . . O O O . . .
+            . O . O . O . .
+            X . . X . . X .
+            . . . . . . . .
+            """
+            def pos = Position.fromString(pos_str, Color.X)
+            def edge = Position.fromString("""\
+            . . . . . . O X
+            O . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            """, Color.X)
+        expect:
+            FlipTables.flipsFor(D4.toIndex(), pos.getOwnBitboard(), pos.getOpponentBitboard()) ==
+                Bitboard.fromFields([B2, D2, F2, C3, D3, E3, B4, C4, E4, F4, C5, D5, E5, B6, D6, F6])
+            FlipTables.flipsFor(F1.toIndex(), edge.getOwnBitboard(), edge.getOpponentBitboard()) == Bitboard.bit(G1)
+            FlipTables.flipsFor(B1.toIndex(), edge.getOwnBitboard(), edge.getOpponentBitboard()) == 0L
+    }
+}
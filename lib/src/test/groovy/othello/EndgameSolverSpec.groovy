@@ -0,0 +1,84 @@
+package othello
+
+import othello.game.AlphaBetaPlayer
+import othello.game.EndgameSolver
+import othello.game.Search
+
+import spock.lang.*
+
+class EndgameSolverSpec extends Specification {
+
+    // random game with the given number of empties left, the player to move has a move
+    static Position randomPosition(long seed, int empties) {
+        def pos = null
+        while (pos == null) {
+            pos = tryRandomPosition(seed, empties)
+            seed += 1000
+        }
+        return pos
+    }
+
+    static Position tryRandomPosition(long seed, int empties) {
+        def random = new Random(seed)
+        def pos = Position.initialPosition()
+        while (Bitboard.count(~(pos.getOwnBitboard() | pos.getOpponentBitboard())) > empties) {
+            def status = pos.generateStatus()
+            if (status.isGameFinished()) {
+                return null
+            }
+            if (status.isPassForced()) {
+                pos.makePass()
+            }
+            pos.makeMove(status.moves[random.nextInt(status.moves.size())])
+        }
+        return pos.legalMoves().isEmpty() ? null : pos
+    }
+
+    def "exact solver agrees with a full-depth alpha-beta search"() {
+        given:
+            def pos = randomPosition(seed, empties)
+        when:
+            def solved = new EndgameSolver(EndgameSolver.Mode.EXACT, 0).solve(pos)
+            def searched = new Search(pos, 0).run(empties)
+        then:
+            solved.score == searched.score
+        where:
+            [seed, empties] << [(1..8), [1, 2, 3, 4, 7, 8, 10]].combinations()
+    }
+
+    def "win/loss/draw mode finds the sign of the exact result"() {
+        given:
+            def pos = randomPosition(seed, 12)
+        when:
+            def exact = new EndgameSolver(EndgameSolver.Mode.EXACT, 0).solve(pos)
+            def wld = new EndgameSolver(EndgameSolver.Mode.WIN_LOSS_DRAW, 0).solve(pos)
+        then:
+            Integer.signum(exact.score) == Integer.signum(wld.score)
+            wld.nodes <= exact.nodes
+        where:
+            seed << (1..8)
+    }
+
+    def "the solver returns null when the time is up"() {
+        given:
+            def pos = randomPosition(3, 30)
+        when:
+            def solver = new EndgameSolver(EndgameSolver.Mode.EXACT, 0)
+            solver.stop()
+        then:
+            solver.solve(pos) == null
+    }
+
+    def "alpha-beta player plays the solved move near the end"() {
+        given:
+            def pos = randomPosition(seed, 10)
+            def player = new AlphaBetaPlayer("test", 2)
+        when:
+            def result = player.search(pos)
+        then:
+            result.depth == 10
+            result.score == new EndgameSolver(EndgameSolver.Mode.EXACT, 0).solve(pos).score
+        where:
+            seed << (1..4)
+    }
+}
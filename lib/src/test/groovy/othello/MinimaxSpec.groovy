@@ -1,7 +1,7 @@
 package othello
 
 import static othello.Field.*
-import othello.game.MinimaxPlayer
+import othello.game.*
 
 import spock.lang.*
 
@@ -120,4 +120,25 @@ class MinimaxSpec extends Specification {
             pos.generateStatus().isGameFinished()
             evaluation == MinimaxPlayer.LOSS_EVAL
    }
-}
\ No newline at end of file
+
+    //--------------------------------------------------------
+    // Move lists
+    //--------------------------------------------------------
+
+    def "players pick the same move from a bitboard and from a list"() {
+        given:
+            def pos = SymmetrySpec.randomPosition(seed, 20)
+            def moves = pos.legalMovesBitboard()
+            def players = [
+                new MinimaxPlayer("test", 2),
+                new SquareValuationPlayer("test"),
+                new AlphaBetaPlayer("test", 3, 0, new TranspositionTable(10)),
+            ]
+        expect:
+            moves != 0
+            players.every { Field.fromIndex(it.bestMove(pos, moves)) == it.bestMove(pos, pos.legalMoves()) }
+            Bitboard.contains(moves, new RandomPlayer("test").bestMove(pos, moves))
+        where:
+            seed << (1..5)
+    }
+}
@@ -0,0 +1,102 @@
+package othello
+
+import static othello.Field.*
+
+import othello.game.OpeningBook
+
+import java.nio.file.Files
+
+import spock.lang.*
+
+class OpeningBookSpec extends Specification {
+
+    static OpeningBook bookWith(Map<Position, Field> moves) {
+        def builder = new OpeningBook.Builder()
+        moves.each { pos, move -> builder.add(pos, move, 10, 8) }
+        return builder.build()
+    }
+
+    //--------------------------------------------------------
+    // Lookup
+    //--------------------------------------------------------
+
+    def "a stored move is found"() {
+        given:
+            def pos = Position.initialPosition()
+            def book = bookWith([(pos): D3])
+        when:
+            def entry = book.probe(pos)
+        then:
+            entry.move == D3
+            entry.score == 10
+            entry.depth == 8
+    }
+
+    def "positions that are not in the book are a miss"() {
+        given:
+            def book = bookWith([(Position.initialPosition()): D3])
+        expect:
+            book.probe(Position.initialPosition().applyMove(D3)) == null
+    }
+
+    def "reflections of a position share the entry, with the move reflected"() {
+        given:
+            // the four first moves are the same up to symmetry
+            def after_d3 = Position.initialPosition().applyMove(D3)
+            def book = bookWith([(after_d3): C3])
+        expect:
+            book.size() == 1
+            book.probe(Position.initialPosition().applyMove(opening)).move == reply
+        where:
+            opening | reply
+            D3      | C3
+            C4      | C3
+            F5      | F6
+            E6      | F6
+    }
+
+    def "the deepest search of a position is kept"() {
+        given:
+            def pos = Position.initialPosition()
+            def builder = new OpeningBook.Builder()
+        when:
+            builder.add(pos, D3, 1, 4)
+            builder.add(pos, C4, 2, 10)
+            builder.add(pos, F5, 3, 6)
+        then:
+            builder.build().probe(pos).move == C4
+    }
+
+    //--------------------------------------------------------
+    // Storage
+    //--------------------------------------------------------
+
+    def "the book survives a write and a memory-mapped load"() {
+        given:
+            def positions = (1..50).collect { SymmetrySpec.randomPosition(it, 10) }
+            def builder = new OpeningBook.Builder()
+            positions.each { builder.add(it, it.legalMoves()[0], it.hashCode() % 1000, 6) }
+            def file = Files.createTempFile("book", ".bin")
+        when:
+            builder.build().writeTo(file)
+            def book = OpeningBook.load(file)
+        then:
+            book.size() == builder.size()
+            positions.every { book.probe(it).move == builder.probe(it).move }
+            positions.every { book.probe(it).score == builder.probe(it).score }
+        cleanup:
+            Files.deleteIfExists(file)
+    }
+
+    def "files of the wrong format are rejected"() {
+        given:
+            def file = Files.createTempFile("book", ".bin")
+            Files.write(file, "definitely not a book".bytes)
+        when:
+            OpeningBook.load(file)
+        then:
+            thrown(IOException)
+        cleanup:
+            Files.deleteIfExists(file)
+    }
+}
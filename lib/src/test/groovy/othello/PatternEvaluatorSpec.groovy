@@ -0,0 +1,128 @@
+package othello
+
+import othello.game.PatternEvaluator
+import othello.game.PatternWeights
+import othello.game.Search
+
+import java.nio.file.Files
+
+import spock.lang.*
+
+class PatternEvaluatorSpec extends Specification {
+
+    static Position randomPosition(long seed, int plies) {
+        def random = new Random(seed)
+        def pos = Position.initialPosition()
+        plies.times {
+            def status = pos.generateStatus()
+            if (!status.isGameFinished()) {
+                if (status.isPassForced()) {
+                    pos.makePass()
+                }
+                pos.makeMove(status.moves[random.nextInt(status.moves.size())])
+            }
+        }
+        return pos
+    }
+
+    //--------------------------------------------------------
+    // Patterns
+    //--------------------------------------------------------
+
+    def "there are 4 edges, 4 second lines, 2 diagonals and 4 corners"() {
+        expect:
+            Patterns.INSTANCES.length == 14
+            Patterns.INSTANCE_TYPE.findAll { it == Patterns.EDGE }.size() == 4
+            Patterns.INSTANCE_TYPE.findAll { it == Patterns.LINE2 }.size() == 4
+            Patterns.INSTANCE_TYPE.findAll { it == Patterns.DIAGONAL }.size() == 2
+            Patterns.INSTANCE_TYPE.findAll { it == Patterns.CORNER }.size() == 4
+    }
+
+    def "pattern index is the base-3 configuration"() {
+        given:
+            def pos_str = """\
+            X O . . . . . X
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            . . . . . . . .
+            """
+            def pos = Position.fromString(pos_str, Color.X)
+            def x = pos.getBitboard(Color.X)
+            def o = pos.getBitboard(Color.O)
+        expect:
+            // A1 .. H1 = X O . . . . . X
+            Patterns.index(x, o, 0) == 1 * 3**7 + 2 * 3**6 + 1
+            Patterns.index(0L, 0L, 0) == 0
+    }
+
+    def "gathered line indices agree with the square by square ones"() {
+        given:
+            def pos = randomPosition(seed, 40)
+            def x = pos.getBitboard(Color.X)
+            def o = pos.getBitboard(Color.O)
+        expect:
+            (0..<Patterns.INSTANCES.length).every { Patterns.index(x, o, it) == Patterns.slowIndex(x, o, it) }
+        where:
+            seed << (1..20)
+    }
+
+    //--------------------------------------------------------
+    // Evaluation
+    //--------------------------------------------------------
+
+    def "weights derived from the square weights give the same evaluation"() {
+        given:
+            def pos = randomPosition(seed, 30)
+            def evaluator = new PatternEvaluator(PatternWeights.fromSquareWeights(1, 0, 0))
+        expect:
+            evaluator.evaluate(pos) == Search.evaluate(pos)
+        where:
+            seed << (1..20)
+    }
+
+    def "evaluation is antisymmetric in the player to move"() {
+        given:
+            def pos = randomPosition(seed, 24)
+            def evaluator = new PatternEvaluator()
+            def value = evaluator.evaluate(pos)
+        when:
+            pos.makePass()
+        then:
+            evaluator.evaluate(pos) == -value
+        where:
+            seed << (1..10)
+    }
+
+    def "weights survive a write and a memory-mapped load"() {
+        given:
+            def weights = PatternWeights.fromSquareWeights(4, 8, 4)
+            def file = Files.createTempFile("weights", ".bin")
+        when:
+            weights.writeTo(file)
+            def loaded = PatternWeights.load(file)
+        then:
+            loaded.getStages() == 4
+            (1..10).every { seed ->
+                def pos = randomPosition(seed, 40)
+                new PatternEvaluator(loaded).evaluate(pos) == new PatternEvaluator(weights).evaluate(pos)
+            }
+        cleanup:
+            Files.deleteIfExists(file)
+    }
+
+    def "files of the wrong format are rejected"() {
+        given:
+            def file = Files.createTempFile("weights", ".bin")
+            Files.write(file, "definitely not weights".bytes)
+        when:
+            PatternWeights.load(file)
+        then:
+            thrown(IOException)
+        cleanup:
+            Files.deleteIfExists(file)
+    }
+}
@@ -0,0 +1,113 @@
+package othello
+
+import static othello.Field.*
+
+import java.nio.ByteBuffer
+
+import spock.lang.*
+
+class PositionCodecSpec extends Specification {
+
+    //--------------------------------------------------------
+    // Positions
+    //--------------------------------------------------------
+
+    def "positions survive encoding and decoding"() {
+        given:
+            def pos = SymmetrySpec.randomPosition(seed, seed * 3)
+        when:
+            def decoded = PositionCodec.fromBytes(PositionCodec.toBytes(pos))
+        then:
+            decoded.toString() == pos.toString()
+            decoded.getPlayerToMove() == pos.getPlayerToMove()
+            decoded.getHash() == pos.getHash()
+        where:
+            seed << (1..20)
+    }
+
+    def "the base64 form is 23 url-safe characters"() {
+        given:
+            def pos = SymmetrySpec.randomPosition(seed, 30)
+            def code = PositionCodec.toBase64(pos)
+        expect:
+            code.length() == 23
+            code ==~ /[A-Za-z0-9_-]+/
+            PositionCodec.fromBase64(code).toAscii() == pos.toAscii()
+        where:
+            seed << (1..10)
+    }
+
+    def "positions can be read and written at an offset of a shared buffer"() {
+        given:
+            def positions = (1..5).collect { SymmetrySpec.randomPosition(it, 20) }
+            def buffer = ByteBuffer.allocate(positions.size() * PositionCodec.BYTES)
+        when:
+            positions.eachWithIndex { pos, i -> PositionCodec.write(pos, buffer, i * PositionCodec.BYTES) }
+        then:
+            buffer.position() == 0
+            (0..<positions.size()).every {
+                PositionCodec.read(buffer, it * PositionCodec.BYTES).toAscii() == positions[it].toAscii()
+            }
+    }
+
+    def "bytes that are not a position are rejected"() {
+        when:
+            PositionCodec.fromBytes(bytes as byte[])
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            bytes << [
+                [0, 0, 0],
+                [0, 0, 0, 0, 0, 0, 0, 1,  0, 0, 0, 0, 0, 0, 0, 1,  0],
+                [0, 0, 0, 0, 0, 0, 0, 1,  0, 0, 0, 0, 0, 0, 0, 2,  7],
+            ]
+    }
+
+    //--------------------------------------------------------
+    // Game records
+    //--------------------------------------------------------
+
+    def "a game record takes one byte per move"() {
+        given:
+            def record = GameRecord.parse("f5d6c3d3c4")
+        expect:
+            record.size() == 5
+            record.toBytes().length == PositionCodec.BYTES + 1 + 5
+            record.toString() == "f5d6c3d3c4"
+    }
+
+    def "game records replay to the same position after a round trip"() {
+        given:
+            def random = new Random(seed)
+            def pos = Position.initialPosition()
+            def record = new GameRecord()
+            while (!pos.generateStatus().isGameFinished()) {
+                def status = pos.generateStatus()
+                if (status.isPassForced()) {
+                    pos.makePass()
+                    record.addPass()
+                }
+                def move = status.moves[random.nextInt(status.moves.size())]
+                pos.makeMove(move)
+                record.add(move)
+            }
+        when:
+            def decoded = GameRecord.fromBytes(record.toBytes())
+        then:
+            decoded.size() == record.size()
+            decoded.replay().toString() == pos.toString()
+            GameRecord.parse(record.toString()).replay().toString() == pos.toString()
+        where:
+            seed << (1..10)
+    }
+
+    def "illegal moves are found when replaying"() {
+        given:
+            def record = new GameRecord()
+            record.add(A1)
+        when:
+            record.replay()
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,150 @@
+package othello
+
+import static othello.Field.*
+import othello.db.GameImporter
+import othello.db.PositionDatabase
+
+import java.nio.file.Files
+
+import spock.lang.*
+
+class PositionDatabaseSpec extends Specification {
+
+    // a finished game from the given seed, as a transcript
+    static String randomGame(long seed) {
+        def random = new Random(seed)
+        def pos = Position.initialPosition()
+        def record = new GameRecord()
+        while (!pos.generateStatus().isGameFinished()) {
+            def moves = pos.legalMoves()
+            if (moves.isEmpty()) {
+                pos.makePass()
+                record.addPass()
+                continue
+            }
+            def move = moves[random.nextInt(moves.size())]
+            pos.makeMove(move)
+            record.add(move)
+        }
+        return record.toString()
+    }
+
+    static PositionDatabase build(List<String> lines, int plies, int chunk) {
+        def dir = Files.createTempDirectory("db")
+        def file = dir.resolve("positions.db")
+        def importer = new GameImporter(plies, chunk, dir)
+        importer.importGames(new BufferedReader(new StringReader(lines.join("\n"))), file)
+        def db = PositionDatabase.load(file)
+        // the runs are gone, only the database is left
+        assert Files.list(dir).count() == 1
+        // deleted in the reverse order
+        dir.toFile().deleteOnExit()
+        file.toFile().deleteOnExit()
+        return db
+    }
+
+    def "the initial position counts every game"() {
+        given:
+            def games = (1..50).collect { randomGame(it) }
+            def db = build(games, 60, 1 << 10)
+        when:
+            def stats = db.lookup(Position.initialPosition())
+        then:
+            stats.total.games == 50
+            stats.moves*.games.sum() == 50
+            stats.moves*.move.every { it in [D3, C4, F5, E6] }
+            stats.moves*.games == stats.moves*.games.sort(false).reverse()
+    }
+
+    def "small chunks give the same database as one big chunk"() {
+        given:
+            def games = (1..200).collect { randomGame(it) }
+            def big = build(games, 20, 1 << 16)
+            def small = build(games, 20, 64)
+            def positions = games.take(20).collect { GameRecord.parse(it).replay(10) }
+        expect:
+            big.size() == small.size()
+            positions.every { big.lookup(it).toString() == small.lookup(it).toString() }
+    }
+
+    def "results are counted for the player making the move"() {
+        given:
+            def game = randomGame(7)
+            def record = GameRecord.parse(game)
+            def end = record.replay()
+            def x_result = Integer.signum(Bitboard.count(end.getBitboard(Color.X)) - Bitboard.count(end.getBitboard(Color.O)))
+            def db = build([game], 60, 1 << 10)
+        when:
+            def pos = record.replay(5)
+            def stats = db.lookup(pos)
+            def for_player = pos.playerToMove == Color.X ? x_result : -x_result
+        then:
+            stats.total.games == 1
+            stats.moves[0].move == Field.fromIndex(record.moveAt(5))
+            stats.total.wins == (for_player > 0 ? 1 : 0)
+            stats.total.draws == (for_player == 0 ? 1 : 0)
+            stats.total.losses == (for_player < 0 ? 1 : 0)
+    }
+
+    def "reflections of a position share their statistics"() {
+        given:
+            def db = build((1..30).collect { randomGame(it) }, 10, 1 << 10)
+            def pos = Position.initialPosition()
+            def reflected = Position.initialPosition()
+        when:
+            pos.makeMove(F5)
+            reflected.makeMove(E6)
+            def stats = db.lookup(pos)
+            def reflected_stats = db.lookup(reflected)
+        then:
+            stats.total.games == reflected_stats.total.games
+            stats.moves*.games == reflected_stats.moves*.games
+            reflected_stats.moves*.move.every { it in reflected.legalMoves() }
+    }
+
+    def "bad and unfinished games are skipped"() {
+        given:
+            def dir = Files.createTempDirectory("db")
+            def file = dir.resolve("positions.db")
+            def importer = new GameImporter(60, 1 << 10, dir)
+            def lines = [
+                "# comment",
+                "",
+                randomGame(1) + " 40-24",
+                randomGame(2).toUpperCase(),
+                "f5d6c3",
+                "f5f5",
+                "f5zz",
+            ]
+        when:
+            importer.importGames(new BufferedReader(new StringReader(lines.join("\n"))), file)
+        then:
+            importer.imported == 2
+            importer.skipped == 3
+            PositionDatabase.load(file).lookup(Position.initialPosition()).total.games == 2
+        cleanup:
+            Files.deleteIfExists(file)
+            Files.deleteIfExists(dir)
+    }
+
+    def "positions that were never played are not found"() {
+        given:
+            def db = build([randomGame(1)], 4, 1 << 10)
+        expect:
+            // deeper than the plies that were imported
+            db.lookup(GameRecord.parse(randomGame(1)).replay(10)) == null
+            db.lookup(GameRecord.parse(randomGame(2)).replay(30)) == null
+    }
+
+    def "a file that is not a database is rejected"() {
+        given:
+            def file = Files.createTempFile("positions", ".db")
+            Files.write(file, "definitely not a database".bytes)
+        when:
+            PositionDatabase.load(file)
+        then:
+            thrown(IOException)
+        cleanup:
+            Files.deleteIfExists(file)
+    }
+}
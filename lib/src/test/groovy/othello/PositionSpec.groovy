@@ -262,6 +262,197 @@ class PositionSpec extends Specification {
             pos.toString() == result.stripIndent()
     }
 
+    def "make move returns the flipped discs"() {
+        given:
+            def pos = Position.initialPosition()
+        when:
+            def flipped = pos.makeMove(D3)
+        then:
+            Bitboard.toFields(flipped) == [D4]
+    }
+
+    def "unmake move restores the position"() {
+        given:
+            def random = new Random(seed)
+            def pos = Position.initialPosition()
+            def history = []
+        when:
+            while (!pos.generateStatus().isGameFinished()) {
+                def moves = pos.legalMoves()
+                if (moves.isEmpty()) {
+                    pos.makePass()
+                    history << [null, 0L, pos.toString()]
+                    continue
+                }
+                def before = pos.toString()
+                def move = moves[random.nextInt(moves.size())]
+                def flipped = pos.makeMove(move)
+                history << [move, flipped, before]
+            }
+            def restored = history.reverse().every { move, flipped, before ->
+                if (move == null) {
+                    pos.makePass()
+                    return true
+                }
+                pos.unmakeMove(move, flipped)
+                return pos.toString() == before
+            }
+        then:
+            restored
+            pos.toString() == Position.initialPosition().toString()
+            pos.getPlayerToMove() == Color.X
+        where:
+            seed << (1..10)
+    }
+
+    //--------------------------------------------------------
+    // Zobrist hash
+    //--------------------------------------------------------
+
+    def "hash is updated incrementally by make, unmake and pass"() {
+        given:
+            def random = new Random(seed)
+            def pos = Position.initialPosition()
+            def mismatches = 0
+        when:
+            while (!pos.generateStatus().isGameFinished()) {
+                def moves = pos.legalMoves()
+                if (moves.isEmpty()) {
+                    pos.makePass()
+                } else {
+                    def before = pos.getHash()
+                    def move = moves[random.nextInt(moves.size())]
+                    def flipped = pos.makeMove(move)
+                    pos.unmakeMove(move, flipped)
+                    if (pos.getHash() != before) {
+                        mismatches++
+                    }
+                    pos.makeMove(move)
+                }
+                def fresh = Position.fromString(pos.toString(), pos.getPlayerToMove())
+                if (pos.getHash() != fresh.getHash()) {
+                    mismatches++
+                }
+            }
+        then:
+            mismatches == 0
+        where:
+            seed << (1..10)
+    }
+
+    def "transpositions have the same hash"() {
+        given:
+            def a = Position.initialPosition()
+            def b = Position.initialPosition()
+        when:
+            [F5, F6, E6, F4].each { a.makeMove(it) }
+            [E6, F6, F5, F4].each { b.makeMove(it) }
+        then:
+            a.toString() == b.toString()
+            a.getHash() == b.getHash()
+    }
+
+    def "hash depends on the player to move"() {
+        given:
+            def pos = Position.initialPosition()
+            def hash = pos.getHash()
+        when:
+            pos.makePass()
+        then:
+            pos.getHash() != hash
+    }
+
+    //--------------------------------------------------------
+    // Evaluation terms
+    //--------------------------------------------------------
+
+    static int squareScore(Position pos) {
+        def score = 0
+        pos.getBoard().eachWithIndex { square, i ->
+            if (square == Square.X) {
+                score += SquareWeights.WEIGHTS[i]
+            } else if (square == Square.O) {
+                score -= SquareWeights.WEIGHTS[i]
+            }
+        }
+        return pos.getPlayerToMove() == Color.X ? score : -score
+    }
+
+    def "the square score is updated incrementally by make, unmake and pass"() {
+        given:
+            def random = new Random(seed)
+            def pos = Position.initialPosition()
+            def mismatches = 0
+        when:
+            while (!pos.isTerminal()) {
+                if (!pos.hasLegalMove()) {
+                    pos.makePass()
+                } else {
+                    def before = pos.getSquareScore()
+                    def moves = pos.legalMoves()
+                    def move = moves[random.nextInt(moves.size())]
+                    def flipped = pos.makeMove(move)
+                    pos.unmakeMove(move, flipped)
+                    if (pos.getSquareScore() != before) {
+                        mismatches++
+                    }
+                    // copies carry the score along
+                    if (random.nextBoolean()) {
+                        pos.makeMove(move)
+                    } else {
+                        pos = pos.applyMove(move)
+                    }
+                }
+                if (pos.getSquareScore() != squareScore(pos)) {
+                    mismatches++
+                }
+            }
+        then:
+            mismatches == 0
+        where:
+            seed << (1..10)
+    }
+
+    def "positions built from boards and bitboards start with the right square score"() {
+        given:
+            def pos = SymmetrySpec.randomPosition(1, 30)
+        expect:
+            pos.getSquareScore() == squareScore(pos)
+            pos.getSquareScore() != 0
+            Position.fromString(pos.toString(), pos.getPlayerToMove()).getSquareScore() == pos.getSquareScore()
+            Position.fromBitboards(pos.getBitboard(Color.X), pos.getBitboard(Color.O), Color.O).getSquareScore() ==
+                -pos.getSquareScore()
+            pos.transform(Symmetry.MIRROR).getSquareScore() == pos.getSquareScore()
+    }
+
+    def "hasLegalMove and isTerminal agree with generateStatus"() {
+        given:
+            def random = new Random(seed)
+            def pos = Position.initialPosition()
+            def mismatches = 0
+        when:
+            while (true) {
+                def status = pos.generateStatus()
+                if (pos.isTerminal() != status.isGameFinished()) {
+                    mismatches++
+                }
+                if (pos.hasLegalMove() != (!status.isGameFinished() && !status.isPassForced())) {
+                    mismatches++
+                }
+                if (status.isGameFinished()) {
+                    break
+                }
+                if (status.isPassForced()) {
+                    pos.makePass()
+                }
+                pos.makeMove(status.moves[random.nextInt(status.moves.size())])
+            }
+        then:
+            mismatches == 0
+        where:
+            seed << (1..20)
+    }
+
     //--------------------------------------------------------
     // Playing the game
     //--------------------------------------------------------
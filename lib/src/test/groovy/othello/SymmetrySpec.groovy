@@ -0,0 +1,177 @@
+package othello
+
+import static othello.Field.*
+
+import spock.lang.*
+
+class SymmetrySpec extends Specification {
+
+    static Position randomPosition(long seed, int plies) {
+        def random = new Random(seed)
+        def pos = Position.initialPosition()
+        plies.times {
+            def status = pos.generateStatus()
+            if (!status.isGameFinished()) {
+                if (status.isPassForced()) {
+                    pos.makePass()
+                }
+                pos.makeMove(status.moves[random.nextInt(status.moves.size())])
+            }
+        }
+        return pos
+    }
+
+    //--------------------------------------------------------
+    // Basic operations
+    //--------------------------------------------------------
+
+    def "basic operations move the corner squares"() {
+        expect:
+            Symmetry.transform(Symmetry.MIRROR, A1) == H1
+            Symmetry.transform(Symmetry.FLIP, A1) == A8
+            Symmetry.transform(Symmetry.TRANSPOSE, B1) == A2
+            Symmetry.transform(Symmetry.TRANSPOSE, H8) == H8
+            Symmetry.transform(Symmetry.MIRROR | Symmetry.FLIP, B1) == G8
+    }
+
+    def "the 8 symmetries are different and each has an inverse"() {
+        given:
+            def mask = Bitboard.fromFields([A1, B1, C1, A2, D5])
+        expect:
+            (0..<Symmetry.COUNT).collect { Symmetry.transform(it, mask) }.toSet().size() == 8
+            (0..<Symmetry.COUNT).every { s ->
+                Symmetry.transform(Symmetry.inverse(s), Symmetry.transform(s, mask)) == mask
+            }
+    }
+
+    def "bitboard and square transforms agree"() {
+        expect:
+            (0..<Symmetry.COUNT).every { s ->
+                (0..<Position.FIELDS).every { i ->
+                    Symmetry.transform(s, Bitboard.bit(i)) == Bitboard.bit(Symmetry.transform(s, i))
+                }
+            }
+    }
+
+    //--------------------------------------------------------
+    // Positions
+    //--------------------------------------------------------
+
+    def "legal moves are transformed with the position"() {
+        given:
+            def pos = randomPosition(seed, 20)
+            def own = pos.getOwnBitboard()
+            def opp = pos.getOpponentBitboard()
+        expect:
+            (0..<Symmetry.COUNT).every { s ->
+                Bitboard.legalMoves(Symmetry.transform(s, own), Symmetry.transform(s, opp)) ==
+                    Symmetry.transform(s, Bitboard.legalMoves(own, opp))
+            }
+        where:
+            seed << (1..10)
+    }
+
+    def "all the images of a position have the same canonical form"() {
+        given:
+            def pos = randomPosition(seed, 30)
+            def x = pos.getBitboard(Color.X)
+            def o = pos.getBitboard(Color.O)
+            def c = Symmetry.canonical(x, o)
+            def canonical = [Symmetry.transform(c, x), Symmetry.transform(c, o)]
+        expect:
+            (0..<Symmetry.COUNT).every { s ->
+                def tx = Symmetry.transform(s, x)
+                def to = Symmetry.transform(s, o)
+                def tc = Symmetry.canonical(tx, to)
+                [Symmetry.transform(tc, tx), Symmetry.transform(tc, to)] == canonical
+            }
+        where:
+            seed << (1..10)
+    }
+
+    def "the four first moves have the same canonical form"() {
+        given:
+            def images = [D3, C4, F5, E6].collect {
+                def pos = Position.initialPosition().applyMove(it)
+                def x = pos.getBitboard(Color.X)
+                def o = pos.getBitboard(Color.O)
+                def c = Symmetry.canonical(x, o)
+                [Symmetry.transform(c, x), Symmetry.transform(c, o)]
+            }
+        expect:
+            images.toSet().size() == 1
+    }
+
+    def "the canonical symmetry is the smallest image, the first one on a tie"() {
+        given:
+            def pos = randomPosition(seed, plies)
+            def x = pos.getBitboard(Color.X)
+            def o = pos.getBitboard(Color.O)
+            // compared as unsigned, X first
+            def order = { s -> [Symmetry.transform(s, x) ^ Long.MIN_VALUE, Symmetry.transform(s, o) ^ Long.MIN_VALUE] }
+            def brute_force = (0..<Symmetry.COUNT).min { a, b ->
+                def ia = order(a)
+                def ib = order(b)
+                ia[0] <=> ib[0] ?: ia[1] <=> ib[1] ?: a <=> b
+            }
+        expect:
+            Symmetry.canonical(x, o) == brute_force
+        where:
+            // the early positions are often symmetric, with ties
+            [seed, plies] << [(1..20), [0, 1, 2, 4, 8, 30]].combinations()
+    }
+
+    def "square boards and fields are transformed like bitboards"() {
+        given:
+            def pos = randomPosition(seed, 25)
+        expect:
+            (0..<Symmetry.COUNT).every { s ->
+                Symmetry.transform(s, pos.getBoard()) as List == pos.transform(s).getBoard() as List
+            }
+            (0..<Symmetry.COUNT).every { s ->
+                Field.values().every { Symmetry.inverseTransform(s, Symmetry.transform(s, it)) == it }
+            }
+        where:
+            seed << (1..5)
+    }
+
+    def "a transformed position plays like the original"() {
+        given:
+            def pos = randomPosition(seed, 20)
+        expect:
+            (0..<Symmetry.COUNT).every { s ->
+                def image = pos.transform(s)
+                def same = image.playerToMove == pos.playerToMove &&
+                    image.legalMoves().toSet() == pos.legalMoves().collect { Symmetry.transform(s, it) }.toSet() &&
+                    Bitboard.count(image.getBitboard(Color.X)) == Bitboard.count(pos.getBitboard(Color.X)) &&
+                    Bitboard.count(image.getBitboard(Color.O)) == Bitboard.count(pos.getBitboard(Color.O))
+                // and after every move
+                same && pos.legalMoves().every { move ->
+                    def after = pos.applyMove(move)
+                    def image_after = image.applyMove(Symmetry.transform(s, move))
+                    image_after.getBitboard(Color.X) == Symmetry.transform(s, after.getBitboard(Color.X)) &&
+                        image_after.getBitboard(Color.O) == Symmetry.transform(s, after.getBitboard(Color.O)) &&
+                        Symmetry.inverseTransform(s, image_after.getOwnBitboard()) == after.getOwnBitboard()
+                }
+            }
+        where:
+            seed << (1..10)
+    }
+
+    def "all the images of a position have the same canonical hash"() {
+        given:
+            def pos = randomPosition(seed, 30)
+            def canonical = pos.canonical()
+        expect:
+            pos.canonicalHash() == canonical.getHash()
+            pos.canonicalHash() == pos.getHash(pos.canonicalSymmetry())
+            (0..<Symmetry.COUNT).every { s ->
+                def image = pos.transform(s)
+                image.canonicalHash() == pos.canonicalHash() &&
+                    image.getHash(Symmetry.inverse(s)) == pos.getHash() &&
+                    image.canonical().getBitboard(Color.X) == canonical.getBitboard(Color.X)
+            }
+        where:
+            seed << (1..10)
+    }
+}
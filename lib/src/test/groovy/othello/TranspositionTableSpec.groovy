@@ -0,0 +1,96 @@
+package othello
+
+import othello.game.TranspositionTable
+
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import spock.lang.*
+
+class TranspositionTableSpec extends Specification {
+
+    def "stored entries can be probed"() {
+        given:
+            def tt = new TranspositionTable(10)
+        when:
+            tt.store(12345L, 7, TranspositionTable.LOWER, -321, 42)
+            def entry = tt.probe(12345L)
+        then:
+            entry != TranspositionTable.MISS
+            TranspositionTable.depth(entry) == 7
+            TranspositionTable.bound(entry) == TranspositionTable.LOWER
+            TranspositionTable.score(entry) == -321
+            TranspositionTable.move(entry) == 42
+    }
+
+    def "unknown keys miss"() {
+        given:
+            def tt = new TranspositionTable(10)
+        when:
+            tt.store(12345L, 7, TranspositionTable.EXACT, 10, 1)
+        then:
+            tt.probe(54321L) == TranspositionTable.MISS
+            // same bucket, different key
+            tt.probe(12345L + (1L << 40)) == TranspositionTable.MISS
+    }
+
+    def "the deeper entry survives in a full bucket"() {
+        given:
+            def tt = new TranspositionTable(4)
+            // keys with the same low bits share a bucket
+            def deep = 1L
+            def shallow = 1L + (1L << 32)
+            def newcomer = 1L + (2L << 32)
+        when:
+            tt.store(deep, 10, TranspositionTable.EXACT, 1, 1)
+            tt.store(shallow, 2, TranspositionTable.EXACT, 2, 2)
+            tt.store(newcomer, 5, TranspositionTable.EXACT, 3, 3)
+        then:
+            tt.probe(deep) != TranspositionTable.MISS
+            tt.probe(shallow) == TranspositionTable.MISS
+            tt.probe(newcomer) != TranspositionTable.MISS
+    }
+
+    def "entries from older searches are replaced first"() {
+        given:
+            def tt = new TranspositionTable(4)
+            def old_deep = 1L
+            def shallow = 1L + (1L << 32)
+            def newcomer = 1L + (2L << 32)
+        when:
+            tt.store(old_deep, 20, TranspositionTable.EXACT, 1, 1)
+            tt.newSearch()
+            tt.store(shallow, 2, TranspositionTable.EXACT, 2, 2)
+            tt.store(newcomer, 5, TranspositionTable.EXACT, 3, 3)
+        then:
+            tt.probe(old_deep) == TranspositionTable.MISS
+            tt.probe(shallow) != TranspositionTable.MISS
+    }
+
+    def "concurrent writers never produce an entry for the wrong key"() {
+        given:
+            def tt = new TranspositionTable(8)
+            def pool = Executors.newFixedThreadPool(8)
+            def corrupted = Collections.synchronizedList([])
+        when:
+            (0..<8).each { thread ->
+                pool.submit {
+                    def random = new Random(thread)
+                    100_000.times {
+                        // the score is derived from the key, so we can check it
+                        long key = random.nextInt(4096)
+                        tt.store(key, (int) (key % 60), TranspositionTable.EXACT, (int) key, (int) (key % 64))
+                        long probe = random.nextInt(4096)
+                        def entry = tt.probe(probe)
+                        if (entry != TranspositionTable.MISS && TranspositionTable.score(entry) != probe) {
+                            corrupted << probe
+                        }
+                    }
+                }
+            }
+            pool.shutdown()
+            pool.awaitTermination(1, TimeUnit.MINUTES)
+        then:
+            corrupted.isEmpty()
+    }
+}